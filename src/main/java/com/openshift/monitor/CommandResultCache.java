@@ -0,0 +1,117 @@
+package com.openshift.monitor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of successful native command results with a freshness window per group
+ * Groups whose data changes rarely can be given a long TTL, so mixed runs only re-execute
+ * the commands of fast-changing groups; groups without a TTL are never cached
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class CommandResultCache {
+
+    private static class Entry {
+        private final CommandRunner.CommandResult result;
+        private final long createdAt;
+
+        Entry(CommandRunner.CommandResult result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final Map<String, Long> ttlMillisByGroup;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param ttlMillisByGroup Freshness window per group letter
+     */
+    CommandResultCache(Map<String, Long> ttlMillisByGroup) {
+        this.ttlMillisByGroup = Collections.unmodifiableMap(new TreeMap<>(ttlMillisByGroup));
+    }
+
+    /**
+     * Parse "D=3600,Q=3600" into a TTL in milliseconds per group
+     *
+     * @param validGroups Known group letters
+     * @throws IllegalArgumentException if an entry is malformed or names an unknown group
+     */
+    static Map<String, Long> parseTtls(String spec, Set<String> validGroups) {
+        Map<String, Long> ttls = new TreeMap<>();
+        if (spec == null || spec.trim().isEmpty()) {
+            return ttls;
+        }
+
+        for (String entry : spec.split(",")) {
+            String[] keyValue = entry.trim().split("=", 2);
+            String group = keyValue[0].trim();
+            if (keyValue.length != 2 || !validGroups.contains(group)) {
+                throw new IllegalArgumentException("Invalid command cache TTL entry: " + entry.trim());
+            }
+            try {
+                ttls.put(group, Long.parseLong(keyValue[1].trim()) * 1000);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid command cache TTL entry: " + entry.trim());
+            }
+        }
+        return ttls;
+    }
+
+    /**
+     * Fresh cached result of the command, or null if the group is not cached or the entry is stale
+     */
+    CommandRunner.CommandResult get(String group, String command) {
+        Long ttl = ttlMillisByGroup.get(group);
+        if (ttl == null || ttl <= 0) {
+            return null;
+        }
+
+        Entry entry = entries.get(group + "|" + command);
+        if (entry == null || System.currentTimeMillis() - entry.createdAt > ttl) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * Remember a successful result of a cached group
+     */
+    void put(CommandRunner.CommandResult result) {
+        Long ttl = ttlMillisByGroup.get(result.getGroup());
+        if (ttl == null || ttl <= 0 || !result.isSuccess()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        entries.put(result.getGroup() + "|" + result.getCommand(), new Entry(result, now));
+        // Drop entries of commands that were removed from the commands file or are long expired
+        entries.values().removeIf(entry -> now - entry.createdAt > ttlMillisByGroup.get(entry.result.getGroup()));
+    }
+
+    boolean isEnabled() {
+        return !ttlMillisByGroup.isEmpty();
+    }
+
+    /**
+     * Hit/miss counters, size and configured TTLs
+     */
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("size", entries.size());
+        Map<String, Long> ttlSeconds = new LinkedHashMap<>();
+        ttlMillisByGroup.forEach((group, ttl) -> ttlSeconds.put(group, ttl / 1000));
+        stats.put("ttlSeconds", ttlSeconds);
+        return stats;
+    }
+}
@@ -0,0 +1,242 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.*;
+
+/**
+ * Runs monitoring commands concurrently in the JVM instead of one bash script
+ * A shared pool bounds the number of commands running across all jobs, and each group
+ * is worked on by at most a configured number of lanes, so a single large group cannot
+ * monopolize the pool
+ * Fresh results from the {@link CommandResultCache} are used instead of running the command
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class CommandRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(CommandRunner.class.getName());
+
+    /**
+     * Outcome of a single command
+     */
+    static class CommandResult {
+        private final String group;
+        private final String command;
+        private final int exitCode;
+        private final String output;
+        private final long durationMillis;
+        private final boolean timedOut;
+        private final boolean cached;
+
+        CommandResult(String group, String command, int exitCode, String output, long durationMillis, boolean timedOut) {
+            this(group, command, exitCode, output, durationMillis, timedOut, false);
+        }
+
+        private CommandResult(String group, String command, int exitCode, String output, long durationMillis,
+                              boolean timedOut, boolean cached) {
+            this.group = group;
+            this.command = command;
+            this.exitCode = exitCode;
+            this.output = output;
+            this.durationMillis = durationMillis;
+            this.timedOut = timedOut;
+            this.cached = cached;
+        }
+
+        /**
+         * The same result, marked as served from the command cache
+         */
+        CommandResult asCached() {
+            return new CommandResult(group, command, exitCode, output, durationMillis, timedOut, true);
+        }
+
+        boolean isSuccess() {
+            return exitCode == 0 && !timedOut;
+        }
+
+        String getGroup() { return group; }
+        String getCommand() { return command; }
+        int getExitCode() { return exitCode; }
+        String getOutput() { return output; }
+        long getDurationMillis() { return durationMillis; }
+        boolean isTimedOut() { return timedOut; }
+        boolean isCached() { return cached; }
+    }
+
+    private final File workingDirectory;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+    private final int perGroupParallelism;
+    private final long commandTimeoutMillis;
+    private final int maxOutputBytes;
+    private final CommandResultCache cache;
+
+    /**
+     * @param workingDirectory Directory commands run in
+     * @param threadFactory Factory for command threads
+     * @param globalParallelism Maximum commands running at once across all runs
+     * @param perGroupParallelism Maximum commands of one group running at once within a run
+     * @param commandTimeoutMillis Time after which a single command is killed
+     * @param maxOutputBytes Output retained per command, split between its head and its tail
+     * @param cache Results reused while fresh instead of re-running the command
+     */
+    CommandRunner(File workingDirectory, ThreadFactory threadFactory, int globalParallelism, int perGroupParallelism,
+                  long commandTimeoutMillis, int maxOutputBytes, CommandResultCache cache) {
+        this.workingDirectory = workingDirectory;
+        this.perGroupParallelism = perGroupParallelism;
+        this.commandTimeoutMillis = commandTimeoutMillis;
+        this.maxOutputBytes = maxOutputBytes;
+        this.cache = cache;
+
+        this.executor = new ThreadPoolExecutor(globalParallelism, globalParallelism, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(
+                MonitorThreads.newFactory("monitor-command-watchdog", false));
+    }
+
+    /**
+     * Run all commands and wait for them, up to the given deadline
+     * Commands still pending at the deadline are killed or skipped and reported as timed out
+     *
+     * @param commandsByGroup Command text per group
+     * @param listener Called as each command finishes, from a pool thread
+     * @param deadlineMillis Maximum wall-clock time for the whole run
+     * @return Results in group order, then command order
+     */
+    List<CommandResult> run(Map<String, List<String>> commandsByGroup, Consumer<CommandResult> listener,
+                            long deadlineMillis) throws InterruptedException {
+        List<String[]> commands = new ArrayList<>();
+        Map<String, Queue<Integer>> pendingByGroup = new LinkedHashMap<>();
+        Map<Integer, CommandResult> cachedResults = new HashMap<>();
+
+        commandsByGroup.forEach((group, groupCommands) -> {
+            Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+            for (String command : groupCommands) {
+                CommandResult cached = cache.get(group, command);
+                if (cached != null) {
+                    cachedResults.put(commands.size(), cached.asCached());
+                } else {
+                    pending.add(commands.size());
+                }
+                commands.add(new String[] {group, command});
+            }
+            pendingByGroup.put(group, pending);
+        });
+
+        CommandResult[] results = new CommandResult[commands.size()];
+        cachedResults.forEach((index, result) -> {
+            results[index] = result;
+            listener.accept(result);
+        });
+        if (!cachedResults.isEmpty()) {
+            LOGGER.info("Serving " + cachedResults.size() + " of " + commands.size() + " commands from the command cache");
+        }
+
+        Set<Process> running = ConcurrentHashMap.newKeySet();
+        List<Future<?>> lanes = new ArrayList<>();
+
+        // Each lane drains one group's queue sequentially; lanes of all groups share the pool
+        pendingByGroup.forEach((group, pending) -> {
+            int laneCount = Math.min(perGroupParallelism, pending.size());
+            for (int i = 0; i < laneCount; i++) {
+                lanes.add(executor.submit(() -> {
+                    Integer index;
+                    while (!Thread.currentThread().isInterrupted() && (index = pending.poll()) != null) {
+                        CommandResult result = execute(commands.get(index)[0], commands.get(index)[1], running);
+                        cache.put(result);
+                        results[index] = result;
+                        listener.accept(result);
+                    }
+                }));
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + deadlineMillis;
+        boolean deadlineExceeded = false;
+        try {
+            for (Future<?> lane : lanes) {
+                // A failed lane only loses its own remaining commands; the other lanes keep running
+                try {
+                    lane.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Command lane failed", e.getCause());
+                }
+            }
+        } catch (TimeoutException e) {
+            deadlineExceeded = true;
+            LOGGER.warning("Command run exceeded " + deadlineMillis + " ms, cancelling remaining commands");
+        } finally {
+            lanes.forEach(lane -> lane.cancel(true));
+            running.forEach(ProcessTrees::destroyForcibly);
+        }
+
+        List<CommandResult> ordered = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            ordered.add(results[i] != null ? results[i]
+                    : new CommandResult(commands.get(i)[0], commands.get(i)[1], -1,
+                            deadlineExceeded ? "Not run: deadline exceeded" : "Not run: command lane failed",
+                            0, deadlineExceeded));
+        }
+        return ordered;
+    }
+
+    /**
+     * Stop the pool; processes of interrupted runs are killed by those runs
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    private CommandResult execute(String group, String command, Set<Process> running) {
+        long start = System.currentTimeMillis();
+        Process process;
+        try {
+            ProcessBuilder pb = new ProcessBuilder("bash", "-c", command);
+            pb.directory(workingDirectory);
+            pb.redirectErrorStream(true);
+            process = pb.start();
+        } catch (IOException e) {
+            return new CommandResult(group, command, -1, "Failed to start: " + e.getMessage(), 0, false);
+        }
+
+        running.add(process);
+        // The run may have been cancelled while the process was starting, after its processes were killed
+        if (Thread.currentThread().isInterrupted()) {
+            running.remove(process);
+            ProcessTrees.destroyForcibly(process);
+            return new CommandResult(group, command, -1, "Not run: deadline exceeded", System.currentTimeMillis() - start, true);
+        }
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> kill = watchdog.schedule(() -> {
+            timedOut.set(true);
+            ProcessTrees.destroyForcibly(process);
+        }, commandTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        // Keep the first quarter and the last three quarters of the budget: errors tend to be at the end
+        OutputCapture output = new OutputCapture(maxOutputBytes / 4, maxOutputBytes - maxOutputBytes / 4, null, null);
+        try (InputStream in = process.getInputStream()) {
+            output.drain(in);
+            int exitCode = process.waitFor();
+            return new CommandResult(group, command, exitCode, output.preview(),
+                    System.currentTimeMillis() - start, timedOut.get());
+        } catch (IOException e) {
+            return new CommandResult(group, command, -1, output.preview() + "\nFailed to read output: " + e.getMessage(),
+                    System.currentTimeMillis() - start, timedOut.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ProcessTrees.destroyForcibly(process);
+            return new CommandResult(group, command, -1, output.preview(), System.currentTimeMillis() - start, true);
+        } finally {
+            kill.cancel(false);
+            running.remove(process);
+        }
+    }
+}
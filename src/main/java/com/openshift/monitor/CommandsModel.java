@@ -0,0 +1,117 @@
+package com.openshift.monitor;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Immutable parsed view of the monitoring commands file
+ * Lines are kept in file order and command lines are indexed by group,
+ * so requests never have to re-read or re-split the file
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class CommandsModel {
+
+    /**
+     * A single line of the commands file; group is null for comments, blank and unrecognized lines
+     */
+    static class Line {
+        private final String text;
+        private final String group;
+
+        Line(String text, String group) {
+            this.text = text;
+            this.group = group;
+        }
+
+        boolean isComment() {
+            String trimmed = text.trim();
+            return trimmed.isEmpty() || trimmed.startsWith("#");
+        }
+    }
+
+    private final List<Line> lines;
+    private final Map<String, List<String>> commandsByGroup;
+    private final long lastModified;
+    private final long version;
+
+    private CommandsModel(List<Line> lines, Map<String, List<String>> commandsByGroup, long lastModified, long version) {
+        this.lines = lines;
+        this.commandsByGroup = commandsByGroup;
+        this.lastModified = lastModified;
+        this.version = version;
+    }
+
+    /**
+     * Read and parse the commands file
+     */
+    static CommandsModel load(Path file, long version) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return parse(Files.readAllLines(file), lastModified, version);
+    }
+
+    /**
+     * Parse "GROUP|command" lines; comments and blank lines are preserved for filtered output
+     */
+    static CommandsModel parse(List<String> rawLines, long lastModified, long version) {
+        List<Line> lines = new ArrayList<>(rawLines.size());
+        Map<String, List<String>> byGroup = new TreeMap<>();
+
+        for (String raw : rawLines) {
+            String trimmed = raw.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                lines.add(new Line(raw, null));
+                continue;
+            }
+
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                lines.add(new Line(raw, null));
+                continue;
+            }
+
+            String group = raw.substring(0, separator).trim();
+            lines.add(new Line(raw, group));
+            byGroup.computeIfAbsent(group, k -> new ArrayList<>()).add(raw.substring(separator + 1).trim());
+        }
+
+        Map<String, List<String>> frozen = new LinkedHashMap<>();
+        byGroup.forEach((group, commands) -> frozen.put(group, Collections.unmodifiableList(commands)));
+
+        return new CommandsModel(Collections.unmodifiableList(lines), Collections.unmodifiableMap(frozen),
+                lastModified, version);
+    }
+
+    /**
+     * Comment lines plus command lines of the given groups, in file order
+     */
+    List<String> filter(Set<String> groups) {
+        List<String> selected = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.isComment() || (line.group != null && groups.contains(line.group))) {
+                selected.add(line.text);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Command text (without the group prefix) per group, sorted by group
+     */
+    Map<String, List<String>> getCommandsByGroup() {
+        return commandsByGroup;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Monotonic number incremented on every reload
+     */
+    long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,426 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+/**
+ * Gzip compression for text responses
+ * Static assets with a precompressed ".gz" variant in the webapp (produced by the build)
+ * are served from that file; other JSON, HTML, CSS and JavaScript responses are compressed
+ * on the fly once they exceed a small threshold
+ * Responses that already have a Content-Encoding, partial content requests and
+ * streaming (text/event-stream) responses are passed through untouched, as are paths listed
+ * in the "excludedPaths" init parameter (comma-separated prefixes, "/reports/" by default,
+ * since ReportServlet serves its own gzipped copies)
+ * Only gzip is offered: there is no pure-Java Brotli encoder on the classpath
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+public class CompressionFilter implements Filter {
+
+    private static final Logger LOGGER = Logger.getLogger(CompressionFilter.class.getName());
+    private static final int MIN_COMPRESS_BYTES = 512;
+    private static final Set<String> COMPRESSIBLE_TYPES = new HashSet<>(Arrays.asList(
+            "application/json", "text/html", "text/css", "application/javascript", "text/javascript", "text/plain"));
+    private static final Set<String> PRECOMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList(".html", ".js", ".css"));
+    private static final long REVALIDATE_MILLIS = 1000;
+    private static final String DEFAULT_EXCLUDED_PATHS = "/reports/";
+
+    /**
+     * Precompressed variant of a static asset; path is null if the asset has no usable variant
+     */
+    private static class Precompressed {
+        private final String path;
+        private final long length;
+        private final long lastModified;
+        private final long checkedAt;
+
+        Precompressed(String path, long length, long lastModified, long checkedAt) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    private ServletContext servletContext;
+    private String[] excludedUriPrefixes;
+    private final Map<String, Precompressed> precompressed = new ConcurrentHashMap<>();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+
+        String excludedPaths = filterConfig.getInitParameter("excludedPaths");
+        if (excludedPaths == null) {
+            excludedPaths = DEFAULT_EXCLUDED_PATHS;
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (String prefix : excludedPaths.split(",")) {
+            if (!prefix.trim().isEmpty()) {
+                // Matched against the raw request URI, so the context path is part of the prefix
+                prefixes.add(servletContext.getContextPath() + prefix.trim());
+            }
+        }
+        excludedUriPrefixes = prefixes.toArray(new String[0]);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (!acceptsGzip(httpRequest) || httpRequest.getHeader("Range") != null || isExcluded(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if ("GET".equals(httpRequest.getMethod()) && servePrecompressed(httpRequest, httpResponse)) {
+            return;
+        }
+
+        GzipResponseWrapper wrapper = new GzipResponseWrapper(httpResponse);
+        chain.doFilter(request, wrapper);
+
+        // Handlers that called startAsync(request, response) with this wrapper finish it by closing
+        // its stream before completing; after startAsync() they write to the unwrapped response
+        if (!request.isAsyncStarted()) {
+            wrapper.finish();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private boolean isExcluded(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        for (String prefix : excludedUriPrefixes) {
+            if (uri.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the client accepts gzip, honouring an explicit "gzip;q=0"
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add Accept-Encoding to Vary, keeping values set earlier in the chain (e.g. Origin)
+     */
+    static void addVary(HttpServletResponse response) {
+        String vary = response.getHeader("Vary");
+        if (vary == null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        } else if (!vary.toLowerCase(Locale.ROOT).contains("accept-encoding")) {
+            response.setHeader("Vary", vary + ", Accept-Encoding");
+        }
+    }
+
+    /**
+     * Serve the ".gz" variant of a static asset if the build produced one that is not older than the asset
+     */
+    private boolean servePrecompressed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        if (path.isEmpty() || path.equals("/")) {
+            path = "/index.html";
+        }
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || !PRECOMPRESSED_EXTENSIONS.contains(path.substring(dot))) {
+            return false;
+        }
+
+        // Only assets that exist in the webapp are remembered, so the map stays bounded;
+        // entries are re-checked periodically so a hot update or exploded redeploy is picked up
+        long now = System.currentTimeMillis();
+        Precompressed variant = precompressed.get(path);
+        if (variant == null || now - variant.checkedAt >= REVALIDATE_MILLIS) {
+            variant = findPrecompressed(path, now);
+            if (variant == null) {
+                precompressed.remove(path);
+                return false;
+            }
+            precompressed.put(path, variant);
+        }
+        if (variant.path == null) {
+            return false;
+        }
+
+        addVary(response);
+        response.setDateHeader("Last-Modified", variant.lastModified);
+        long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        if (ifModifiedSince >= 0 && variant.lastModified / 1000 * 1000 <= ifModifiedSince) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        response.setContentType(servletContext.getMimeType(path));
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Encoding", "gzip");
+        response.setContentLengthLong(variant.length);
+        try (InputStream in = servletContext.getResourceAsStream(variant.path)) {
+            if (in == null) {
+                // Resource vanished after the lookup (redeploy); the container will sort it out next time
+                precompressed.remove(path);
+                throw new FileNotFoundException(variant.path);
+            }
+            in.transferTo(response.getOutputStream());
+        }
+        return true;
+    }
+
+    private Precompressed findPrecompressed(String path, long now) {
+        try {
+            URL original = servletContext.getResource(path);
+            URL compressed = servletContext.getResource(path + ".gz");
+            if (original == null) {
+                return null;
+            }
+            if (compressed == null) {
+                return new Precompressed(null, 0, 0, now);
+            }
+            URLConnection originalConnection = original.openConnection();
+            URLConnection compressedConnection = compressed.openConnection();
+            if (compressedConnection.getLastModified() < originalConnection.getLastModified()) {
+                LOGGER.warning("Ignoring stale precompressed asset " + path + ".gz");
+                return new Precompressed(null, 0, 0, now);
+            }
+            return new Precompressed(path + ".gz", compressedConnection.getContentLengthLong(),
+                    originalConnection.getLastModified(), now);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Response wrapper that gzips the body once it is known to be compressible and large enough
+     */
+    private static class GzipResponseWrapper extends HttpServletResponseWrapper {
+        private final HttpServletResponse response;
+        private GzipOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        GzipResponseWrapper(HttpServletResponse response) {
+            super(response);
+            this.response = response;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new GzipOutputStream(this);
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new GzipOutputStream(this);
+                Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding())
+                        : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(stream, charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            // The compressed length is unknown; only applied if the body ends up uncompressed
+            if (stream != null && stream.target != null && !stream.compressing) {
+                response.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (stream != null) {
+                stream.flush();
+            } else {
+                applyContentLength();
+            }
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.close();
+            } else if (stream != null) {
+                stream.close();
+            } else {
+                // HEAD requests and empty bodies never open a stream, so nothing is compressed
+                applyContentLength();
+            }
+        }
+
+        private void applyContentLength() {
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+                contentLength = -1;
+            }
+        }
+
+        private boolean isCompressible() {
+            String contentType = getContentType();
+            if (contentType == null) {
+                return false;
+            }
+            int semicolon = contentType.indexOf(';');
+            String mimeType = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+            return COMPRESSIBLE_TYPES.contains(mimeType.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Buffers the first bytes until the compression decision can be made, then writes through
+     */
+    private static class GzipOutputStream extends ServletOutputStream {
+        private final GzipResponseWrapper wrapper;
+        private final byte[] pending = new byte[MIN_COMPRESS_BYTES];
+        private int pendingLength;
+        private OutputStream target;
+        private ServletOutputStream passthrough;
+        private boolean compressing;
+        private boolean closed;
+
+        GzipOutputStream(GzipResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (target == null) {
+                if (pendingLength + length <= pending.length) {
+                    System.arraycopy(bytes, offset, pending, pendingLength, length);
+                    pendingLength += length;
+                    return;
+                }
+                decide(true);
+            }
+            target.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target == null) {
+                // An explicit flush means the caller wants bytes on the wire now: send them as they are
+                decide(false);
+            }
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            if (target == null) {
+                decide(false);
+            }
+            closed = true;
+            target.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return passthrough == null || passthrough.isReady();
+        }
+
+        /**
+         * Non-blocking writers bypass compression: the response is sent as it is
+         * through the container's stream, which then owns the listener
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (target == null) {
+                try {
+                    decide(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (passthrough == null) {
+                throw new IllegalStateException("Non-blocking output is not supported for a compressed response");
+            }
+            passthrough.setWriteListener(writeListener);
+        }
+
+        private void decide(boolean largeEnough) throws IOException {
+            HttpServletResponse response = wrapper.response;
+            boolean compressible = wrapper.isCompressible();
+            compressing = largeEnough && compressible
+                    && !response.containsHeader("Content-Encoding")
+                    && !response.containsHeader("Content-Range")
+                    && response.getStatus() != HttpServletResponse.SC_PARTIAL_CONTENT;
+
+            if (compressible) {
+                addVary(response);
+            }
+            if (compressing) {
+                response.setHeader("Content-Encoding", "gzip");
+                target = new GZIPOutputStream(response.getOutputStream(), MIN_COMPRESS_BYTES * 16);
+            } else {
+                if (wrapper.contentLength >= 0) {
+                    response.setContentLengthLong(wrapper.contentLength);
+                }
+                passthrough = response.getOutputStream();
+                target = passthrough;
+            }
+            if (pendingLength > 0) {
+                target.write(pending, 0, pendingLength);
+                pendingLength = 0;
+            }
+        }
+    }
+}
@@ -1,38 +1,191 @@
 package com.openshift.monitor;
 
 import java.io.IOException;
+import java.util.*;
+import java.util.logging.Logger;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
+/**
+ * CORS policy compiled once from the filter configuration
+ * Init parameter "corsMappings" maps path prefixes to allowed origins, e.g.
+ * "/api/ = *; /reports/ = https://ops.example.com https://grafana.example.com",
+ * longest prefix first; "maxAgeSeconds" sets how long browsers may cache preflight results
+ * Requests without an Origin header, or from the application's own origin, pass straight through
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
 public class CorsFilter implements Filter {
 
+    private static final Logger LOGGER = Logger.getLogger(CorsFilter.class.getName());
+    private static final String DEFAULT_MAPPINGS = "/api/ = *";
+    private static final int DEFAULT_MAX_AGE_SECONDS = 86400;
+    private static final String ALLOW_METHODS = "GET, POST, PUT, DELETE, OPTIONS";
+    private static final String ALLOW_HEADERS = "Content-Type, Authorization";
+    private static final String EXPOSE_HEADERS = "Location, Retry-After";
+
+    /**
+     * Allowed origins for one path prefix
+     */
+    private static class Policy {
+        private final String uriPrefix;
+        private final boolean anyOrigin;
+        private final Set<String> origins;
+
+        Policy(String uriPrefix, boolean anyOrigin, Set<String> origins) {
+            this.uriPrefix = uriPrefix;
+            this.anyOrigin = anyOrigin;
+            this.origins = origins;
+        }
+
+        boolean allows(String origin) {
+            return anyOrigin || origins.contains(origin);
+        }
+    }
+
+    private Policy[] policies;
+    private String maxAge;
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        String contextPath = filterConfig.getServletContext().getContextPath();
+
+        String mappings = filterConfig.getInitParameter("corsMappings");
+        if (mappings == null || mappings.trim().isEmpty()) {
+            mappings = DEFAULT_MAPPINGS;
+        }
+
+        List<Policy> compiled = new ArrayList<>();
+        for (String mapping : mappings.split(";")) {
+            if (mapping.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = mapping.split("=", 2);
+            if (parts.length != 2 || !parts[0].trim().startsWith("/")) {
+                throw new ServletException("Invalid CORS mapping: " + mapping.trim());
+            }
+
+            Set<String> origins = new HashSet<>(Arrays.asList(parts[1].trim().split("\\s+")));
+            boolean anyOrigin = origins.remove("*");
+            // Matching is done on the raw request URI, so the context path is compiled into the prefix
+            compiled.add(new Policy(contextPath + parts[0].trim(), anyOrigin, Collections.unmodifiableSet(origins)));
+        }
+        compiled.sort(Comparator.comparingInt((Policy p) -> p.uriPrefix.length()).reversed());
+        policies = compiled.toArray(new Policy[0]);
+
+        int maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+        String maxAgeParameter = filterConfig.getInitParameter("maxAgeSeconds");
+        if (maxAgeParameter != null && !maxAgeParameter.trim().isEmpty()) {
+            try {
+                maxAgeSeconds = Integer.parseInt(maxAgeParameter.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Invalid maxAgeSeconds: " + maxAgeParameter + ", using " + DEFAULT_MAX_AGE_SECONDS);
+            }
+        }
+        maxAge = String.valueOf(maxAgeSeconds);
+
+        LOGGER.info("CORS enabled for " + policies.length + " path prefixes, preflight max age " + maxAge + "s");
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
         HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // Set CORS headers
-        httpResponse.setHeader("Access-Control-Allow-Origin", "*");
-        httpResponse.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        httpResponse.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
-        httpResponse.setHeader("Access-Control-Max-Age", "3600");
+        Policy policy = findPolicy(httpRequest.getRequestURI());
+        if (policy != null && !policy.anyOrigin) {
+            // The response differs by Origin, including the same-origin and rejected variants,
+            // so shared caches must not hand one origin's copy to another
+            httpResponse.addHeader("Vary", "Origin");
+        }
 
-        // Handle preflight requests
-        if ("OPTIONS".equalsIgnoreCase(httpRequest.getMethod())) {
-            httpResponse.setStatus(HttpServletResponse.SC_OK);
+        String origin = httpRequest.getHeader("Origin");
+        if (origin == null || policy == null || isSameOrigin(httpRequest, origin)) {
+            chain.doFilter(request, response);
             return;
         }
 
+        boolean preflight = "OPTIONS".equals(httpRequest.getMethod())
+                && httpRequest.getHeader("Access-Control-Request-Method") != null;
+
+        if (!policy.allows(origin)) {
+            if (preflight) {
+                httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            // No CORS headers: the browser refuses to expose the response to the foreign page
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (policy.anyOrigin) {
+            httpResponse.setHeader("Access-Control-Allow-Origin", "*");
+        } else {
+            httpResponse.setHeader("Access-Control-Allow-Origin", origin);
+        }
+
+        if (preflight) {
+            httpResponse.setHeader("Access-Control-Allow-Methods", ALLOW_METHODS);
+            httpResponse.setHeader("Access-Control-Allow-Headers", ALLOW_HEADERS);
+            httpResponse.setHeader("Access-Control-Max-Age", maxAge);
+            httpResponse.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
+        }
+
+        httpResponse.setHeader("Access-Control-Expose-Headers", EXPOSE_HEADERS);
         chain.doFilter(request, response);
     }
 
     @Override
     public void destroy() {
     }
+
+    private Policy findPolicy(String uri) {
+        for (Policy policy : policies) {
+            if (uri.startsWith(policy.uriPrefix)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare "scheme://host[:port]" of the Origin header with the request without building strings
+     */
+    private static boolean isSameOrigin(HttpServletRequest request, String origin) {
+        String scheme = request.getScheme();
+        String host = request.getServerName();
+        int port = request.getServerPort();
+
+        int schemeEnd = scheme.length();
+        if (!origin.regionMatches(true, 0, scheme, 0, schemeEnd) || !origin.startsWith("://", schemeEnd)) {
+            return false;
+        }
+
+        int hostStart = schemeEnd + 3;
+        if (!origin.regionMatches(true, hostStart, host, 0, host.length())) {
+            return false;
+        }
+
+        int hostEnd = hostStart + host.length();
+        boolean defaultPort = ("http".equalsIgnoreCase(scheme) && port == 80) || ("https".equalsIgnoreCase(scheme) && port == 443);
+        if (hostEnd == origin.length()) {
+            return defaultPort;
+        }
+        if (origin.charAt(hostEnd) != ':' || hostEnd + 1 == origin.length() || origin.length() - hostEnd > 6) {
+            return false;
+        }
+        int originPort = 0;
+        for (int i = hostEnd + 1; i < origin.length(); i++) {
+            char c = origin.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            originPort = originPort * 10 + (c - '0');
+        }
+        return originPort == port;
+    }
 }
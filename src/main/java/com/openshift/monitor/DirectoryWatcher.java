@@ -0,0 +1,82 @@
+package com.openshift.monitor;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.function.Consumer;
+import java.util.logging.*;
+
+/**
+ * Watches a single directory on a background thread and reports changed entries
+ * The listener receives the absolute path of a created, modified or deleted entry,
+ * or null when events were lost and the caller should rescan
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class DirectoryWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatcher.class.getName());
+
+    private final Path directory;
+    private final Consumer<Path> listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    DirectoryWatcher(Path directory, Consumer<Path> listener) throws IOException {
+        this.directory = directory;
+        this.listener = listener;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        this.thread = new Thread(this::run, "dir-watcher-" + directory.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        notifyListener(null);
+                    } else {
+                        notifyListener(directory.resolve((Path) event.context()));
+                    }
+                }
+
+                if (!key.reset()) {
+                    LOGGER.warning("Watch key no longer valid for " + directory);
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void notifyListener(Path path) {
+        try {
+            listener.accept(path);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Directory watch listener failed for " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close watch service for " + directory, e);
+        }
+    }
+}
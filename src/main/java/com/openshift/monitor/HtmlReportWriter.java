@@ -0,0 +1,134 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Writes the HTML report for runs executed by the {@link CommandRunner},
+ * and merges per-shard script reports into one
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class HtmlReportWriter {
+
+    private static final Pattern HEAD = Pattern.compile("<head[^>]*>(.*?)</head>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern BODY = Pattern.compile("<body[^>]*>(.*)</body>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private HtmlReportWriter() {
+    }
+
+    /**
+     * Merge several HTML reports into one, each under its own heading
+     * The head of the first part is kept so its styles apply; missing parts are noted in place
+     *
+     * @param file Destination report file
+     * @param titles Heading per part
+     * @param parts Report file per part, or null if the part produced no report
+     */
+    static void merge(File file, List<String> titles, List<File> parts) throws IOException {
+        Path temp = file.toPath().resolveSibling(file.getName() + ".tmp");
+
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            String head = null;
+            StringBuilder body = new StringBuilder();
+
+            for (int i = 0; i < parts.size(); i++) {
+                body.append("<section>\n<h2>").append(escape(titles.get(i))).append("</h2>\n");
+                File part = parts.get(i);
+
+                if (part == null || !part.exists()) {
+                    body.append("<p>No report was produced for this shard.</p>");
+                } else {
+                    String html = new String(Files.readAllBytes(part.toPath()), StandardCharsets.UTF_8);
+                    Matcher headMatch = HEAD.matcher(html);
+                    if (head == null && headMatch.find()) {
+                        head = headMatch.group(1);
+                    }
+                    Matcher bodyMatch = BODY.matcher(html);
+                    body.append(bodyMatch.find() ? bodyMatch.group(1) : html);
+                }
+                body.append("\n</section>\n");
+            }
+
+            out.write("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n");
+            out.write(head != null ? head : "<meta charset=\"UTF-8\">\n<title>OpenShift Monitor Report</title>\n");
+            out.write("</head>\n<body>\n");
+            out.write(body.toString());
+            out.write("</body>\n</html>\n");
+        }
+
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write a report with one section per group
+     * In actionable mode only failed or timed out commands are listed
+     *
+     * @param file Destination report file
+     * @param results Command results in group order
+     * @param groupNames Display name per group letter
+     * @param verbose Whether to include successful commands
+     * @param unchangedOmitted Number of commands left out because their result did not change since the previous run
+     */
+    static void write(File file, List<CommandRunner.CommandResult> results, Map<String, String> groupNames,
+                      boolean verbose, int unchangedOmitted) throws IOException {
+        Path temp = file.toPath().resolveSibling(file.getName() + ".tmp");
+
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            long failed = results.stream().filter(r -> !r.isSuccess()).count();
+
+            out.write("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"UTF-8\">\n");
+            out.write("<title>OpenShift Monitor Report</title>\n");
+            out.write("<style>body{font-family:sans-serif;margin:20px}pre{background:#f8f9fa;padding:10px;"
+                    + "overflow-x:auto}.failed{color:#c0392b}.ok{color:#27ae60}</style>\n");
+            out.write("</head>\n<body>\n<h1>OpenShift Monitor Report</h1>\n");
+            out.write("<p>Generated " + escape(new Date().toString()) + " &mdash; " + results.size()
+                    + " commands, " + failed + " failed (" + (verbose ? "verbose" : "actionable") + " mode)</p>\n");
+            if (unchangedOmitted > 0) {
+                out.write("<p>" + unchangedOmitted + " commands with the same result as in the previous run are not shown</p>\n");
+            }
+
+            String currentGroup = null;
+            for (CommandRunner.CommandResult result : results) {
+                if (!verbose && result.isSuccess()) {
+                    continue;
+                }
+                if (!result.getGroup().equals(currentGroup)) {
+                    currentGroup = result.getGroup();
+                    out.write("<h2>" + escape(currentGroup) + " &ndash; "
+                            + escape(groupNames.getOrDefault(currentGroup, "Category " + currentGroup)) + "</h2>\n");
+                }
+                writeCommand(out, result);
+            }
+
+            out.write("</body>\n</html>\n");
+        }
+
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeCommand(Writer out, CommandRunner.CommandResult result) throws IOException {
+        String status = result.isTimedOut() ? "timed out"
+                : result.getExitCode() == 0 ? "ok" : "exit code " + result.getExitCode();
+
+        out.write("<h3><code>" + escape(result.getCommand()) + "</code> <span class=\""
+                + (result.isSuccess() ? "ok" : "failed") + "\">" + escape(status) + "</span> ("
+                + result.getDurationMillis() + " ms" + (result.isCached() ? ", cached" : "") + ")</h3>\n");
+        out.write("<pre>" + escape(result.getOutput()) + "</pre>\n");
+    }
+
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#039;");
+    }
+}
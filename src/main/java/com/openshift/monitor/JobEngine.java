@@ -0,0 +1,263 @@
+package com.openshift.monitor;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * Bounded executor-based engine for monitoring runs
+ * Jobs are accepted immediately and executed on a fixed pool of worker threads,
+ * so request threads are never held while the monitoring script runs
+ * Identical concurrent requests (same groups and mode) share a single in-flight job,
+ * and recent identical runs are answered from the {@link ResultCache}
+ * Waiting jobs are started by priority; a job gains one priority level for every
+ * aging interval it has waited, so lower priorities are never starved
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class JobEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(JobEngine.class.getName());
+    private static final long DEFAULT_RUN_ESTIMATE_MILLIS = 60_000;
+    private static final double RUN_TIME_SMOOTHING = 0.2;
+
+    /**
+     * Performs the actual work for a job and returns its result
+     */
+    interface JobRunner {
+        MonitorServlet.MonitorResult run(MonitorJob job) throws Exception;
+    }
+
+    private final JobRunner runner;
+    private final ResultCache resultCache;
+    private final ThreadPoolExecutor executor;
+    private final List<MonitorJob> pending = new ArrayList<>();
+    private final int maxQueued;
+    private final long agingMillis;
+    private final Map<String, MonitorJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, MonitorJob> inFlight = new HashMap<>();
+    private final long retentionMillis;
+    private final AtomicLong rejected = new AtomicLong();
+    private double averageRunMillis = -1;
+
+    /**
+     * @param runner Work to perform for each job
+     * @param resultCache Cache of recent successful results
+     * @param threadFactory Factory for worker threads
+     * @param maxConcurrent Maximum number of jobs running at the same time
+     * @param maxQueued Maximum number of jobs waiting for a worker
+     * @param retentionMillis How long finished jobs stay available for polling
+     * @param agingMillis Waiting time after which a queued job is promoted by one priority level
+     */
+    JobEngine(JobRunner runner, ResultCache resultCache, ThreadFactory threadFactory,
+              int maxConcurrent, int maxQueued, long retentionMillis, long agingMillis) {
+        this.runner = runner;
+        this.resultCache = resultCache;
+        this.retentionMillis = retentionMillis;
+        this.maxQueued = maxQueued;
+        this.agingMillis = agingMillis;
+
+        // The executor queue only holds interchangeable "start next job" tasks, one per pending job;
+        // which job actually starts is decided by priority when a worker becomes free
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Queue a new job, or return the in-flight job for an identical request
+     * A fresh enough cached result is returned as an already completed job
+     *
+     * @param maxAgeMillis Maximum acceptable age of a cached result, or negative for the cache default
+     * @throws RejectedExecutionException if the wait queue is full
+     */
+    synchronized MonitorJob submit(MonitorServlet.MonitorRequest request, long maxAgeMillis) {
+        purgeExpiredJobs();
+
+        String runKey = MonitorJob.runKey(request);
+
+        MonitorServlet.MonitorResult cachedResult = resultCache.get(runKey, maxAgeMillis);
+        if (cachedResult != null) {
+            MonitorJob job = new MonitorJob(request);
+            job.completeFromCache(cachedResult);
+            jobs.put(job.getId(), job);
+            LOGGER.info("Served job " + job.getId() + " from result cache for " + runKey);
+            return job;
+        }
+
+        MonitorJob existing = inFlight.get(runKey);
+        if (existing != null) {
+            // An urgent request must not wait behind the lower priority of the job it joins
+            existing.raisePriority(MonitorJob.Priority.fromName(request.getPriority()));
+            LOGGER.info("Attached request to in-flight job " + existing.getId() + " for " + runKey);
+            return existing;
+        }
+
+        if (pending.size() >= maxQueued) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Job queue is full (" + maxQueued + " waiting)");
+        }
+
+        MonitorJob job = new MonitorJob(request);
+        jobs.put(job.getId(), job);
+        inFlight.put(runKey, job);
+        pending.add(job);
+
+        try {
+            executor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            pending.remove(job);
+            jobs.remove(job.getId());
+            inFlight.remove(runKey);
+            rejected.incrementAndGet();
+            throw e;
+        }
+
+        LOGGER.info("Queued job " + job.getId() + " with priority " + job.getPriority()
+                + " (active: " + executor.getActiveCount() + ", queued: " + pending.size() + ")");
+        return job;
+    }
+
+    /**
+     * Cancel a queued or running job
+     * A queued job is removed and finished immediately; a running job is interrupted
+     * and finishes as CANCELLED once its processes have been killed
+     *
+     * @return The job, or null if unknown
+     */
+    MonitorJob cancel(String id) {
+        MonitorJob job = jobs.get(id);
+        if (job == null || job.getStatus().isFinished()) {
+            return job;
+        }
+
+        boolean wasQueued;
+        synchronized (this) {
+            wasQueued = pending.remove(job);
+            if (wasQueued) {
+                inFlight.remove(job.getRunKey(), job);
+            }
+            job.requestCancel();
+        }
+
+        if (wasQueued) {
+            job.complete(new MonitorServlet.MonitorResult(false, "Job cancelled", null, null, null));
+        }
+
+        LOGGER.info("Cancelled job " + id + (wasQueued ? " before it started" : " while running"));
+        return job;
+    }
+
+    /**
+     * Look up a job by ID, or null if unknown or expired
+     */
+    MonitorJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Estimated seconds for the current backlog to drain, from the queue depth
+     * and the smoothed average run time; used as Retry-After for rejected submissions
+     */
+    synchronized long estimateRetryAfterSeconds() {
+        double average = averageRunMillis < 0 ? DEFAULT_RUN_ESTIMATE_MILLIS : averageRunMillis;
+        int workers = executor.getMaximumPoolSize();
+        double backlogMillis = (pending.size() + 1) * average / workers;
+        return Math.max(1, (long) Math.ceil(backlogMillis / 1000));
+    }
+
+    /**
+     * Queue depth, running jobs, rejections and average run time
+     */
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", pending.size());
+        stats.put("maxConcurrent", executor.getMaximumPoolSize());
+        stats.put("rejected", rejected.get());
+        stats.put("averageRunSeconds", averageRunMillis < 0 ? null : Math.round(averageRunMillis / 1000));
+        return stats;
+    }
+
+    /**
+     * Stop accepting jobs and interrupt running ones
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start the most urgent pending job on the current worker thread
+     */
+    private void runNext() {
+        MonitorJob next;
+        synchronized (this) {
+            next = takeMostUrgent();
+        }
+        if (next != null) {
+            execute(next);
+        }
+    }
+
+    /**
+     * Remove and return the pending job with the lowest effective rank, oldest first on ties
+     */
+    private MonitorJob takeMostUrgent() {
+        long now = System.currentTimeMillis();
+        MonitorJob best = null;
+        long bestRank = Long.MAX_VALUE;
+
+        for (MonitorJob job : pending) {
+            long waited = now - job.getSubmitted().getTime();
+            long rank = job.getPriority().getRank() - (agingMillis > 0 ? waited / agingMillis : 0);
+            if (rank < bestRank || (rank == bestRank && job.getSubmitted().before(best.getSubmitted()))) {
+                best = job;
+                bestRank = rank;
+            }
+        }
+
+        if (best != null) {
+            pending.remove(best);
+        }
+        return best;
+    }
+
+    private void execute(MonitorJob job) {
+        job.markRunning(Thread.currentThread());
+        LOGGER.info("Started job " + job.getId() + " for groups: " + String.join(", ", job.getGroups()));
+
+        MonitorServlet.MonitorResult result;
+        try {
+            // Cancelled between leaving the queue and starting: nothing to run
+            result = job.isCancelRequested() ? null : runner.run(job);
+        } catch (InterruptedException e) {
+            result = new MonitorServlet.MonitorResult(false, "Job interrupted", null, null, null);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Job " + job.getId() + " failed", e);
+            result = new MonitorServlet.MonitorResult(false, "Script execution failed: " + e.getMessage(), null, null, null);
+        }
+        if (job.isCancelRequested()) {
+            result = new MonitorServlet.MonitorResult(false, "Job cancelled", null, null, null);
+        }
+
+        synchronized (this) {
+            resultCache.put(job.getRunKey(), result);
+            inFlight.remove(job.getRunKey(), job);
+
+            long runMillis = System.currentTimeMillis() - job.getStarted().getTime();
+            averageRunMillis = averageRunMillis < 0 ? runMillis
+                    : averageRunMillis + RUN_TIME_SMOOTHING * (runMillis - averageRunMillis);
+        }
+
+        job.complete(result);
+        // A cancellation racing with normal completion may leave the interrupt flag set; don't leak it to the next job
+        Thread.interrupted();
+        LOGGER.info("Finished job " + job.getId() + " with status " + job.getStatus());
+    }
+
+    private void purgeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinished().getTime() < cutoff);
+    }
+}
@@ -0,0 +1,128 @@
+package com.openshift.monitor;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans out script output lines of a running job to live subscribers
+ * Each subscriber has its own bounded queue; when a slow subscriber falls behind,
+ * the oldest buffered lines are dropped and counted instead of blocking the script
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class JobOutputBroadcaster {
+
+    /**
+     * A single subscriber's bounded view of the output
+     */
+    static class Subscription {
+        // Compared by identity, so a script printing the same text is never mistaken for it
+        private static final String END_OF_STREAM = new String("end-of-stream");
+
+        private final BlockingQueue<String> lines;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile boolean ended;
+
+        Subscription(int capacity) {
+            this.lines = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void offer(String line) {
+            while (!lines.offer(line)) {
+                String evicted = lines.poll();
+                if (evicted != null && evicted != END_OF_STREAM) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Wake a waiting poll; later polls stop waiting once the buffered lines are consumed
+         */
+        private void end() {
+            ended = true;
+            lines.offer(END_OF_STREAM);
+        }
+
+        /**
+         * Wait for the next line, or null if none arrived within the timeout or the output ended
+         */
+        String poll(long timeout, TimeUnit unit) throws InterruptedException {
+            String line = ended ? lines.poll() : lines.poll(timeout, unit);
+            return line == END_OF_STREAM ? null : line;
+        }
+
+        /**
+         * Move all currently buffered lines into the given collection
+         */
+        int drainTo(Collection<String> target) {
+            List<String> drained = new ArrayList<>();
+            lines.drainTo(drained);
+            drained.removeIf(line -> line == END_OF_STREAM);
+            target.addAll(drained);
+            return drained.size();
+        }
+
+        /**
+         * Number of lines dropped since the last call
+         */
+        long takeDropped() {
+            return dropped.getAndSet(0);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Subscribe to lines published from now on
+     */
+    Subscription subscribe(int capacity) {
+        Subscription subscription = new Subscription(capacity);
+        subscriptions.add(subscription);
+        if (closed) {
+            // Subscribed after (or while) the job finished: nothing more will arrive
+            subscription.end();
+        }
+        return subscription;
+    }
+
+    void unsubscribe(Subscription subscription) {
+        subscription.cancel();
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Deliver a line to every subscriber without blocking
+     */
+    void publish(String line) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(line);
+        }
+    }
+
+    /**
+     * Signal that no more lines will be published and wake subscribers waiting for output
+     */
+    void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.end();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,136 @@
+package com.openshift.monitor;
+
+import java.io.IOException;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Hand-written Gson serializers for the API model classes
+ * Registered on the servlet's Gson instances so responses are written field by field
+ * without reflective field access; the JSON is identical to the reflective output
+ * Reading is delegated to Gson's reflective adapter, so fromJson keeps working for these types
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+final class JsonAdapters {
+
+    private JsonAdapters() {
+    }
+
+    /**
+     * Register all model adapters on the builder
+     */
+    static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapterFactory(API_RESPONSE)
+                .registerTypeAdapterFactory(CATEGORY)
+                .registerTypeAdapterFactory(REPORT_FILE)
+                .registerTypeAdapterFactory(MONITOR_RESULT);
+    }
+
+    /**
+     * Factory for a hand-written writer of a type (and its subtypes) whose reads go to the reflective delegate
+     */
+    private abstract static class SerializerFactory<S> implements TypeAdapterFactory {
+        private final Class<S> baseType;
+
+        SerializerFactory(Class<S> baseType) {
+            this.baseType = baseType;
+        }
+
+        /**
+         * Write a non-null value
+         */
+        abstract void write(Gson gson, JsonWriter out, S value) throws IOException;
+
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!baseType.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    if (value == null) {
+                        out.nullValue();
+                        return;
+                    }
+                    SerializerFactory.this.write(gson, out, baseType.cast(value));
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    return delegate.read(in);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final TypeAdapterFactory API_RESPONSE = new SerializerFactory<MonitorServlet.ApiResponse>(MonitorServlet.ApiResponse.class) {
+        @Override
+        void write(Gson gson, JsonWriter out, MonitorServlet.ApiResponse response) throws IOException {
+            out.beginObject();
+            out.name("success").value(response.isSuccess());
+            Object data = response.getData();
+            if (data != null) {
+                out.name("data");
+                // The payload's adapter is looked up by runtime type and cached by Gson
+                ((TypeAdapter) gson.getAdapter(data.getClass())).write(out, data);
+            }
+            out.name("error").value(response.getError());
+            if (response instanceof MonitorServlet.PagedApiResponse) {
+                out.name("nextCursor").value(((MonitorServlet.PagedApiResponse<?>) response).getNextCursor());
+            }
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapterFactory CATEGORY = new SerializerFactory<MonitorServlet.Category>(MonitorServlet.Category.class) {
+        @Override
+        void write(Gson gson, JsonWriter out, MonitorServlet.Category category) throws IOException {
+            out.beginObject();
+            out.name("id").value(category.getId());
+            out.name("name").value(category.getName());
+            out.name("commandCount").value(category.getCommandCount());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapterFactory REPORT_FILE = new SerializerFactory<MonitorServlet.ReportFile>(MonitorServlet.ReportFile.class) {
+        @Override
+        void write(Gson gson, JsonWriter out, MonitorServlet.ReportFile report) throws IOException {
+            out.beginObject();
+            out.name("name").value(report.getName());
+            out.name("size").value(report.getSize());
+            out.name("created").value(report.getCreated());
+            out.name("url").value(report.getUrl());
+            if (report.getGroups() != null) {
+                out.name("groups").beginArray();
+                for (String group : report.getGroups()) {
+                    out.value(group);
+                }
+                out.endArray();
+            }
+            out.name("mode").value(report.getMode());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapterFactory MONITOR_RESULT = new SerializerFactory<MonitorServlet.MonitorResult>(MonitorServlet.MonitorResult.class) {
+        @Override
+        void write(Gson gson, JsonWriter out, MonitorServlet.MonitorResult result) throws IOException {
+            out.beginObject();
+            out.name("success").value(result.isSuccess());
+            out.name("message").value(result.getMessage());
+            out.name("reportFile").value(result.getReportFile());
+            out.name("reportUrl").value(result.getReportUrl());
+            out.name("output").value(result.getOutput());
+            out.endObject();
+        }
+    };
+}
@@ -0,0 +1,199 @@
+package com.openshift.monitor;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A single monitoring run tracked by the {@link JobEngine}
+ * Serialized as-is for the /api/jobs endpoints
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class MonitorJob {
+
+    /**
+     * Lifecycle states of a job
+     */
+    enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * Scheduling priority; lower rank starts first
+     */
+    enum Priority {
+        INTERACTIVE(0), SCHEDULED(1), BULK(2);
+
+        private final int rank;
+
+        Priority(int rank) {
+            this.rank = rank;
+        }
+
+        int getRank() {
+            return rank;
+        }
+
+        /**
+         * Parse a request priority such as "interactive"; null means interactive
+         *
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        static Priority fromName(String name) {
+            return name == null ? INTERACTIVE : valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final String id;
+    private final transient String runKey;
+    private final List<String> groups;
+    private final String mode;
+    private final String runner;
+    private final int shards;
+    private final boolean changedOnly;
+    private volatile Priority priority;
+    private final Date submitted;
+    private volatile Status status;
+    private volatile Date started;
+    private volatile Date finished;
+    private volatile MonitorServlet.MonitorResult result;
+    private volatile boolean cached;
+    private transient volatile boolean cancelRequested;
+    private transient Thread worker;
+    private final transient CompletableFuture<MonitorJob> completion = new CompletableFuture<>();
+    private final transient JobOutputBroadcaster output = new JobOutputBroadcaster();
+    private transient volatile List<OutputFingerprints.CommandDelta> delta;
+
+    /**
+     * @param request Validated request with mode and runner already defaulted
+     */
+    MonitorJob(MonitorServlet.MonitorRequest request) {
+        this.id = UUID.randomUUID().toString();
+        this.groups = Collections.unmodifiableList(new ArrayList<>(request.getGroups()));
+        this.mode = request.getMode();
+        this.runner = request.getRunner();
+        this.shards = request.getShards() != null ? request.getShards() : 1;
+        this.changedOnly = request.isChangedOnly();
+        this.priority = Priority.fromName(request.getPriority());
+        this.runKey = runKey(request);
+        this.submitted = new Date();
+        this.status = Status.QUEUED;
+    }
+
+    /**
+     * Identity of a run for deduplication: the distinct sorted groups, the mode, the runner
+     * and whether only changed commands are reported
+     */
+    static String runKey(MonitorServlet.MonitorRequest request) {
+        return String.join(",", new TreeSet<>(request.getGroups())) + "|" + request.getMode() + "|" + request.getRunner()
+                + (request.isChangedOnly() ? "|changed" : "");
+    }
+
+    /**
+     * Promote the job if the given priority is more urgent than its current one
+     */
+    void raisePriority(Priority candidate) {
+        if (candidate.getRank() < priority.getRank()) {
+            priority = candidate;
+        }
+    }
+
+    /**
+     * Mark the job as picked up by the given worker thread
+     */
+    synchronized void markRunning(Thread worker) {
+        this.worker = worker;
+        started = new Date();
+        status = Status.RUNNING;
+    }
+
+    /**
+     * Request cancellation; a running job's worker is interrupted, which makes
+     * the runner kill its process trees and return
+     */
+    synchronized void requestCancel() {
+        cancelRequested = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Record the final result; status is derived from the result's success flag,
+     * or CANCELLED if cancellation was requested
+     */
+    void complete(MonitorServlet.MonitorResult result) {
+        synchronized (this) {
+            worker = null;
+        }
+        this.result = result;
+        this.finished = new Date();
+        this.status = cancelRequested ? Status.CANCELLED
+                : result != null && result.isSuccess() ? Status.COMPLETED : Status.FAILED;
+        output.close();
+        completion.complete(this);
+    }
+
+    /**
+     * Finish the job immediately with a result served from the result cache
+     */
+    void completeFromCache(MonitorServlet.MonitorResult result) {
+        this.cached = true;
+        this.started = new Date();
+        complete(result);
+    }
+
+    /**
+     * Register a callback invoked once the job has finished
+     * Runs immediately on the calling thread if the job is already finished
+     */
+    void whenFinished(Consumer<MonitorJob> callback) {
+        completion.thenAccept(callback);
+    }
+
+    /**
+     * Live script output for streaming subscribers
+     */
+    JobOutputBroadcaster getOutput() {
+        return output;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Per-command changes recorded by a native run, or null for script runs
+     */
+    List<OutputFingerprints.CommandDelta> getDelta() {
+        return delta;
+    }
+
+    void setDelta(List<OutputFingerprints.CommandDelta> delta) {
+        this.delta = Collections.unmodifiableList(delta);
+    }
+
+    String getRunKey() {
+        return runKey;
+    }
+
+    public String getId() { return id; }
+    public List<String> getGroups() { return groups; }
+    public String getMode() { return mode; }
+    public String getRunner() { return runner; }
+    public int getShards() { return shards; }
+    public boolean isChangedOnly() { return changedOnly; }
+    public Priority getPriority() { return priority; }
+    public Date getSubmitted() { return submitted; }
+    public Status getStatus() { return status; }
+    public Date getStarted() { return started; }
+    public Date getFinished() { return finished; }
+    public MonitorServlet.MonitorResult getResult() { return result; }
+    public boolean isCached() { return cached; }
+}
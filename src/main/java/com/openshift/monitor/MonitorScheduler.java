@@ -0,0 +1,287 @@
+package com.openshift.monitor;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * In-process scheduler for recurring monitoring runs
+ * Schedules are read from a file with one entry per line:
+ * <pre>
+ * # cron expression | groups | mode | options
+ * *&#47;15 * * * * | A,B,C | actionable | jitter=30,missed=catchup
+ * </pre>
+ * A schedule never overlaps itself: while its previous run is still queued or running, a due run
+ * is skipped ("missed=skip", the default) or deferred until that run finishes ("missed=catchup"),
+ * several missed runs collapsing into one. The same policy applies when the scheduler fires late
+ * Each run is delayed by a random amount up to the schedule's jitter, in seconds
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class MonitorScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitorScheduler.class.getName());
+    private static final long MISFIRE_THRESHOLD_MILLIS = 60_000;
+
+    /**
+     * Submits a run for the given groups and mode
+     */
+    interface Submitter {
+        MonitorJob submit(List<String> groups, String mode);
+    }
+
+    /**
+     * What to do with a run that could not start on time
+     */
+    enum MissedRunPolicy {
+        SKIP, CATCHUP
+    }
+
+    /**
+     * A single schedule line and its runtime state
+     */
+    static class Schedule {
+        private final String definition;
+        private final CronExpression cron;
+        private final List<String> groups;
+        private final String mode;
+        private final long jitterMillis;
+        private final MissedRunPolicy missedRunPolicy;
+
+        private MonitorJob lastJob;
+        private ZonedDateTime nextRun;
+        private boolean catchUpPending;
+        private ScheduledFuture<?> timer;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+
+        Schedule(String definition, CronExpression cron, List<String> groups, String mode,
+                 long jitterMillis, MissedRunPolicy missedRunPolicy) {
+            this.definition = definition;
+            this.cron = cron;
+            this.groups = groups;
+            this.mode = mode;
+            this.jitterMillis = jitterMillis;
+            this.missedRunPolicy = missedRunPolicy;
+        }
+
+        List<String> getGroups() { return groups; }
+        String getMode() { return mode; }
+        long getJitterMillis() { return jitterMillis; }
+        MissedRunPolicy getMissedRunPolicy() { return missedRunPolicy; }
+
+        private boolean isRunning() {
+            return lastJob != null && !lastJob.getStatus().isFinished();
+        }
+    }
+
+    private final Submitter submitter;
+    private final ScheduledExecutorService timer;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private List<Schedule> schedules = Collections.emptyList();
+
+    /**
+     * @param submitter Entry point for runs, shared with the run-monitor API
+     * @param threadFactory Factory for the timer thread
+     */
+    MonitorScheduler(Submitter submitter, ThreadFactory threadFactory) {
+        this.submitter = submitter;
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Replace all schedules with the ones in the file; a missing file clears them
+     * Unchanged lines keep their last run, so a reload cannot cause an overlapping run
+     */
+    synchronized void load(Path file) throws IOException {
+        List<String> lines = Files.exists(file) ? Files.readAllLines(file) : Collections.emptyList();
+
+        Map<String, Schedule> previous = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            previous.put(schedule.definition, schedule);
+            if (schedule.timer != null) {
+                schedule.timer.cancel(false);
+            }
+        }
+
+        List<Schedule> loaded = new ArrayList<>();
+        for (String line : lines) {
+            String definition = line.trim();
+            if (definition.isEmpty() || definition.startsWith("#")) {
+                continue;
+            }
+            try {
+                Schedule schedule = parse(definition);
+                Schedule old = previous.get(definition);
+                if (old != null) {
+                    schedule.lastJob = old.lastJob;
+                }
+                loaded.add(schedule);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Ignoring invalid schedule '" + definition + "': " + e.getMessage());
+            }
+        }
+
+        schedules = loaded;
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        loaded.forEach(schedule -> scheduleNext(schedule, now));
+        LOGGER.info("Loaded " + loaded.size() + " monitoring schedules from " + file);
+    }
+
+    /**
+     * Next run, last job and counters of every schedule
+     */
+    synchronized List<Map<String, Object>> getStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (Schedule schedule : schedules) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("cron", schedule.cron.toString());
+            entry.put("groups", schedule.groups);
+            entry.put("mode", schedule.mode);
+            entry.put("nextRun", schedule.nextRun != null ? schedule.nextRun.toOffsetDateTime().toString() : null);
+            entry.put("lastJob", schedule.lastJob != null ? schedule.lastJob.getId() : null);
+            entry.put("runs", schedule.runs.get());
+            entry.put("skipped", schedule.skipped.get());
+            status.add(entry);
+        }
+        return status;
+    }
+
+    /**
+     * Currently loaded schedules
+     */
+    synchronized List<Schedule> getSchedules() {
+        return schedules;
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Parse "cron | groups | mode | options"
+     *
+     * @throws IllegalArgumentException if any part is invalid
+     */
+    static Schedule parse(String definition) {
+        String[] parts = definition.split("\\|");
+        if (parts.length < 3 || parts.length > 4) {
+            throw new IllegalArgumentException("expected 'cron | groups | mode | options'");
+        }
+
+        CronExpression cron = CronExpression.parse(parts[0]);
+
+        List<String> groups = new ArrayList<>();
+        for (String group : parts[1].split(",")) {
+            String trimmed = group.trim();
+            if (!trimmed.matches("^[A-Z]$")) {
+                throw new IllegalArgumentException("invalid group name: " + trimmed);
+            }
+            groups.add(trimmed);
+        }
+
+        String mode = parts[2].trim();
+        if (!mode.equals("actionable") && !mode.equals("verbose")) {
+            throw new IllegalArgumentException("invalid mode: " + mode);
+        }
+
+        long jitterMillis = 0;
+        MissedRunPolicy missed = MissedRunPolicy.SKIP;
+        if (parts.length == 4 && !parts[3].trim().isEmpty()) {
+            for (String option : parts[3].split(",")) {
+                String[] keyValue = option.trim().split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("invalid option: " + option.trim());
+                }
+                String value = keyValue[1].trim();
+                switch (keyValue[0].trim()) {
+                    case "jitter":
+                        try {
+                            jitterMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("invalid jitter: " + value);
+                        }
+                        break;
+                    case "missed":
+                        missed = MissedRunPolicy.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option: " + keyValue[0].trim());
+                }
+            }
+        }
+
+        return new Schedule(definition, cron, Collections.unmodifiableList(groups), mode, jitterMillis, missed);
+    }
+
+    private void scheduleNext(Schedule schedule, ZonedDateTime after) {
+        schedule.nextRun = schedule.cron.next(after);
+        if (schedule.nextRun == null) {
+            LOGGER.warning("Schedule '" + schedule.definition + "' never fires");
+            return;
+        }
+
+        long jitter = schedule.jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(schedule.jitterMillis + 1) : 0;
+        long dueMillis = schedule.nextRun.toInstant().toEpochMilli() + jitter;
+        long delay = Math.max(0, dueMillis - System.currentTimeMillis());
+        schedule.timer = timer.schedule(() -> fire(schedule, dueMillis), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a schedule that was due at dueMillis, applying the misfire and overlap policies
+     */
+    synchronized void fire(Schedule schedule, long dueMillis) {
+        if (!schedules.contains(schedule)) {
+            return;
+        }
+        scheduleNext(schedule, ZonedDateTime.now(zone));
+
+        long lateMillis = System.currentTimeMillis() - dueMillis;
+        if (lateMillis > MISFIRE_THRESHOLD_MILLIS && schedule.missedRunPolicy == MissedRunPolicy.SKIP) {
+            schedule.skipped.incrementAndGet();
+            LOGGER.warning("Skipping run of '" + schedule.definition + "', fired " + lateMillis + " ms late");
+            return;
+        }
+
+        if (schedule.isRunning()) {
+            if (schedule.missedRunPolicy == MissedRunPolicy.CATCHUP && !schedule.catchUpPending) {
+                // Run once more as soon as the overlapping run is done
+                schedule.catchUpPending = true;
+                schedule.lastJob.whenFinished(job -> timer.execute(() -> catchUp(schedule)));
+                LOGGER.info("Deferring run of '" + schedule.definition + "' until job " + schedule.lastJob.getId() + " finishes");
+            } else {
+                schedule.skipped.incrementAndGet();
+                LOGGER.info("Skipping run of '" + schedule.definition + "', job " + schedule.lastJob.getId() + " still running");
+            }
+            return;
+        }
+
+        submit(schedule);
+    }
+
+    private synchronized void catchUp(Schedule schedule) {
+        schedule.catchUpPending = false;
+        if (schedules.contains(schedule) && !schedule.isRunning()) {
+            submit(schedule);
+        }
+    }
+
+    private void submit(Schedule schedule) {
+        try {
+            schedule.lastJob = submitter.submit(schedule.groups, schedule.mode);
+            schedule.runs.incrementAndGet();
+            LOGGER.info("Scheduled run of '" + schedule.definition + "' submitted as job " + schedule.lastJob.getId());
+        } catch (RejectedExecutionException e) {
+            schedule.skipped.incrementAndGet();
+            LOGGER.warning("Scheduled run of '" + schedule.definition + "' rejected: " + e.getMessage());
+        } catch (RuntimeException e) {
+            schedule.skipped.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Scheduled run of '" + schedule.definition + "' failed to submit", e);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.openshift.monitor;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.*;
 import java.util.stream.Collectors;
 import javax.servlet.*;
 import javax.servlet.http.*;
 import javax.servlet.annotation.*;
 import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Main servlet for OpenShift Monitor Web Application
@@ -18,7 +26,7 @@ import com.google.gson.*;
  * @author OpenShift Monitor Team
  * @version 2.0
  */
-@WebServlet(name = "MonitorServlet", urlPatterns = {"/api/*"})
+@WebServlet(name = "MonitorServlet", urlPatterns = {"/api/*"}, asyncSupported = true)
 public class MonitorServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
@@ -27,16 +35,66 @@ public class MonitorServlet extends HttpServlet {
     // Configuration constants
     private static final String SCRIPT_NAME = "openshift_intelligent_monitor_v8.sh";
     private static final String COMMANDS_FILE_NAME = "monitoring_commands_v8.list";
-    private static final String REPORTS_DIR = "reports";
+    private static final String SCHEDULES_FILE_NAME = "monitor_schedules.list";
+    static final String REPORTS_DIR = "reports";
     private static final int SCRIPT_TIMEOUT_MINUTES = 15;
-    private static final int MAX_BUFFER_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int ASYNC_TIMEOUT_GRACE_MINUTES = 1;
+    private static final int OUTPUT_PREVIEW_CHARS = 1000;
+    private static final int OUTPUT_HEAD_BYTES = 1024;
+    private static final int OUTPUT_TAIL_BYTES = 4096;
+    private static final int STREAM_BUFFER_LINES = 1000;
+    private static final int JSON_BUFFER_CHARS = 8192;
+    private static final int STREAM_HEARTBEAT_SECONDS = 15;
+    private static final int STREAM_RETRY_AFTER_SECONDS = 30;
     private static final int MAX_REPORTS_TO_RETURN = 50;
+    private static final int MAX_REPORTS_PAGE_SIZE = 500;
+    private static final int DEFAULT_MAX_CONCURRENT_JOBS = 2;
+    private static final int DEFAULT_MAX_QUEUED_JOBS = 10;
+    private static final int DEFAULT_MAX_CONCURRENT_SCRIPTS = 4;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final int DEFAULT_JOB_RETENTION_MINUTES = 60;
+    private static final int DEFAULT_PRIORITY_AGING_SECONDS = 120;
+    private static final int DEFAULT_MAX_STREAM_SUBSCRIBERS = 50;
+    private static final int DEFAULT_RESULT_CACHE_TTL_SECONDS = 60;
+    private static final int DEFAULT_RESULT_CACHE_MAX_ENTRIES = 32;
+    private static final String RUNNER_SCRIPT = "script";
+    private static final String RUNNER_NATIVE = "native";
+    private static final int DEFAULT_NATIVE_PARALLELISM = 8;
+    private static final int DEFAULT_NATIVE_GROUP_PARALLELISM = 2;
+    private static final int DEFAULT_COMMAND_TIMEOUT_SECONDS = 120;
+    private static final int MAX_COMMAND_OUTPUT_BYTES = 64 * 1024;
+    private static final int MAX_SHARDS = 20;
+    private static final int DEFAULT_MAX_SHARD_PROCESSES = 8;
 
     // Instance variables
     private String scriptDir;
     private Gson gson;
+    private Gson prettyGson;
+    private boolean prettyByDefault;
     private File commandsFile;
+    private volatile CommandsModel commandsModel;
+    private final AtomicLong commandsVersion = new AtomicLong();
+    private DirectoryWatcher commandsWatcher;
+    private volatile PrecomputedResponse categoriesResponse;
     private File reportsDirectory;
+    private ReportIndex reportIndex;
+    private DirectoryWatcher reportsWatcher;
+    private File outputLogDirectory;
+    private JobEngine jobEngine;
+    private volatile MonitorScheduler scheduler;
+    private ResultCache resultCache;
+    private ThreadPoolExecutor streamExecutor;
+    private Semaphore streamSlots;
+    private CommandRunner commandRunner;
+    private CommandResultCache commandCache;
+    private final OutputFingerprints fingerprints = new OutputFingerprints();
+    private String defaultRunner;
+    private ThreadPoolExecutor shardExecutor;
+    private ExecutorService processIoExecutor;
+    private Semaphore scriptSlots;
+    private int maxConcurrentScripts;
+    private boolean virtualThreads;
+    private int defaultShards;
 
     /**
      * Initialize servlet - locate script directory and validate files
@@ -46,16 +104,15 @@ public class MonitorServlet extends HttpServlet {
         super.init();
 
         try {
-            // Initialize Gson with pretty printing for development
-            gson = new GsonBuilder()
-                    .setPrettyPrinting()
+            // Compact JSON by default; pretty printing with the "pretty" profile or per request with ?pretty=1
+            gson = JsonAdapters.register(new GsonBuilder())
                     .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
                     .create();
+            prettyGson = gson.newBuilder().setPrettyPrinting().create();
+            prettyByDefault = "pretty".equals(getInitParameter("jsonProfile"));
 
             // Get the path to the script directory (parent of webapp)
-            String webappPath = getServletContext().getRealPath("/");
-            File webapp = new File(webappPath);
-            scriptDir = webapp.getParentFile().getParentFile().getParentFile().getAbsolutePath();
+            scriptDir = resolveScriptDir(getServletContext()).getAbsolutePath();
 
             LOGGER.info("Script directory initialized: " + scriptDir);
 
@@ -65,6 +122,18 @@ public class MonitorServlet extends HttpServlet {
                 throw new ServletException("Commands file not found or not readable: " + commandsFile.getAbsolutePath());
             }
 
+            // Parse commands once and keep the model current as the file changes
+            commandsModel = CommandsModel.load(commandsFile.toPath(), commandsVersion.incrementAndGet());
+            commandsWatcher = new DirectoryWatcher(Paths.get(scriptDir), path -> {
+                if (path == null || path.getFileName().toString().equals(COMMANDS_FILE_NAME)) {
+                    reloadCommandsModel();
+                }
+                if (path == null || path.getFileName().toString().equals(SCHEDULES_FILE_NAME)) {
+                    reloadSchedules();
+                }
+            });
+            commandsWatcher.start();
+
             // Validate script exists
             File scriptFile = new File(scriptDir, SCRIPT_NAME);
             if (!scriptFile.exists() || !scriptFile.canExecute()) {
@@ -78,12 +147,195 @@ public class MonitorServlet extends HttpServlet {
                 LOGGER.info("Created reports directory: " + reportsDirectory.getAbsolutePath());
             }
 
+            // Index reports once, then follow changes instead of rescanning per request
+            reportIndex = new ReportIndex(reportsDirectory.toPath());
+            reportsWatcher = new DirectoryWatcher(reportsDirectory.toPath(), reportIndex::onChange);
+            reportsWatcher.start();
+            reportIndex.rescan();
+
+            // Optional per-job log files with the full script output
+            String outputLogs = getInitParameter("outputLogDirectory");
+            if (outputLogs != null && !outputLogs.trim().isEmpty()) {
+                outputLogDirectory = new File(outputLogs.trim());
+                if (!outputLogDirectory.isAbsolute()) {
+                    outputLogDirectory = new File(scriptDir, outputLogs.trim());
+                }
+                outputLogDirectory.mkdirs();
+                LOGGER.info("Writing script output logs to: " + outputLogDirectory.getAbsolutePath());
+            }
+
+            // Thread mode: "virtual" runs job, process I/O and stream threads as virtual threads on JDK 21+
+            virtualThreads = "virtual".equals(getInitParameter("threadMode"));
+            if (virtualThreads && !MonitorThreads.isVirtualAvailable()) {
+                LOGGER.warning("Virtual threads requested but not supported by this JVM, using platform threads");
+                virtualThreads = false;
+            }
+            LOGGER.info("Thread mode: " + (virtualThreads ? "virtual" : "platform"));
+            processIoExecutor = MonitorThreads.newPerTaskExecutor("monitor-process-io", virtualThreads);
+
+            // Hard cap on script processes running at once, across jobs and shards
+            maxConcurrentScripts = getIntInitParameter("maxConcurrentScripts", DEFAULT_MAX_CONCURRENT_SCRIPTS);
+            scriptSlots = new Semaphore(maxConcurrentScripts, true);
+
+            // Start job engine for asynchronous monitoring runs
+            resultCache = new ResultCache(
+                    TimeUnit.SECONDS.toMillis(getIntInitParameter("resultCacheTtlSeconds", DEFAULT_RESULT_CACHE_TTL_SECONDS)),
+                    getIntInitParameter("resultCacheMaxEntries", DEFAULT_RESULT_CACHE_MAX_ENTRIES));
+            jobEngine = new JobEngine(this::runJob, resultCache,
+                    MonitorThreads.newFactory("monitor-job", virtualThreads),
+                    getIntInitParameter("maxConcurrentJobs", DEFAULT_MAX_CONCURRENT_JOBS),
+                    getIntInitParameter("maxQueuedJobs", DEFAULT_MAX_QUEUED_JOBS),
+                    TimeUnit.MINUTES.toMillis(getIntInitParameter("jobRetentionMinutes", DEFAULT_JOB_RETENTION_MINUTES)),
+                    TimeUnit.SECONDS.toMillis(getIntInitParameter("priorityAgingSeconds", DEFAULT_PRIORITY_AGING_SECONDS)));
+
+            // Per-command result cache for the native runner, e.g. "D=3600,Q=3600"; off unless configured
+            Map<String, Long> commandCacheTtls;
+            try {
+                commandCacheTtls = CommandResultCache.parseTtls(getInitParameter("commandCacheTtls"),
+                        getCategoryDescriptions().keySet());
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning(e.getMessage() + ", command cache disabled");
+                commandCacheTtls = Collections.emptyMap();
+            }
+            commandCache = new CommandResultCache(commandCacheTtls);
+            if (commandCache.isEnabled()) {
+                LOGGER.info("Command cache TTLs (ms): " + commandCacheTtls);
+            }
+
+            // Java-side runner executing commands concurrently, used for runner "native"
+            commandRunner = new CommandRunner(new File(scriptDir),
+                    MonitorThreads.newFactory("monitor-command", virtualThreads),
+                    getIntInitParameter("nativeParallelism", DEFAULT_NATIVE_PARALLELISM),
+                    getIntInitParameter("nativeGroupParallelism", DEFAULT_NATIVE_GROUP_PARALLELISM),
+                    TimeUnit.SECONDS.toMillis(getIntInitParameter("commandTimeoutSeconds", DEFAULT_COMMAND_TIMEOUT_SECONDS)),
+                    MAX_COMMAND_OUTPUT_BYTES, commandCache);
+            defaultRunner = RUNNER_NATIVE.equals(getInitParameter("defaultRunner")) ? RUNNER_NATIVE : RUNNER_SCRIPT;
+
+            // Script processes of sharded runs execute in parallel on a bounded pool
+            int maxShardProcesses = getIntInitParameter("maxShardProcesses", DEFAULT_MAX_SHARD_PROCESSES);
+            shardExecutor = new ThreadPoolExecutor(maxShardProcesses, maxShardProcesses, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), MonitorThreads.newFactory("monitor-shard", virtualThreads));
+            shardExecutor.allowCoreThreadTimeOut(true);
+            defaultShards = Math.max(1, Math.min(MAX_SHARDS, getIntInitParameter("defaultShards", 1)));
+
+            // Recurring runs from the schedules file, submitted through the job engine like API runs
+            scheduler = new MonitorScheduler(this::submitScheduledRun,
+                    MonitorThreads.newFactory("monitor-scheduler", false));
+            reloadSchedules();
+
+            // One thread per live output stream; the number of streams is bounded by the slots,
+            // reserved before the request goes async so an overloaded server can refuse with a plain 503
+            streamSlots = new Semaphore(getIntInitParameter("maxStreamSubscribers", DEFAULT_MAX_STREAM_SUBSCRIBERS));
+            streamExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                    60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    MonitorThreads.newFactory("monitor-stream", virtualThreads));
+
         } catch (Exception e) {
             LOGGER.severe("Failed to initialize servlet: " + e.getMessage());
             throw new ServletException("Servlet initialization failed", e);
         }
     }
 
+    /**
+     * Script directory: three levels above the deployed webapp directory
+     */
+    static File resolveScriptDir(ServletContext context) {
+        File webapp = new File(context.getRealPath("/"));
+        return webapp.getParentFile().getParentFile().getParentFile();
+    }
+
+    /**
+     * Stop the job engine when the servlet is taken out of service
+     */
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (jobEngine != null) {
+            jobEngine.shutdown();
+        }
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+        }
+        if (commandRunner != null) {
+            commandRunner.shutdown();
+        }
+        if (shardExecutor != null) {
+            shardExecutor.shutdownNow();
+        }
+        if (processIoExecutor != null) {
+            processIoExecutor.shutdownNow();
+        }
+        if (commandsWatcher != null) {
+            commandsWatcher.close();
+        }
+        if (reportsWatcher != null) {
+            reportsWatcher.close();
+        }
+        super.destroy();
+    }
+
+    /**
+     * Re-parse the commands file and atomically swap the model
+     * The previous model stays in use if the file is missing or unreadable
+     */
+    private void reloadCommandsModel() {
+        try {
+            CommandsModel model = CommandsModel.load(commandsFile.toPath(), commandsVersion.incrementAndGet());
+            commandsModel = model;
+            LOGGER.info("Reloaded commands file (version " + model.getVersion() + ", "
+                    + model.getCommandsByGroup().size() + " groups)");
+        } catch (IOException e) {
+            LOGGER.warning("Failed to reload commands file, keeping previous version: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read the schedules file; an invalid file keeps the current schedules
+     */
+    private void reloadSchedules() {
+        MonitorScheduler current = scheduler;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.load(Paths.get(scriptDir, SCHEDULES_FILE_NAME));
+        } catch (IOException e) {
+            LOGGER.warning("Failed to load schedules file, keeping previous schedules: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Submit a run for a schedule with the same defaults as the run-monitor API
+     * Scheduled runs always execute fresh instead of being answered from the result cache
+     */
+    private MonitorJob submitScheduledRun(List<String> groups, String mode) {
+        MonitorRequest monitorRequest = new MonitorRequest();
+        monitorRequest.setGroups(groups);
+        monitorRequest.setMode(mode);
+        monitorRequest.setRunner(defaultRunner);
+        monitorRequest.setShards(defaultShards);
+        monitorRequest.setPriority(MonitorJob.Priority.SCHEDULED.name().toLowerCase(Locale.ROOT));
+        return jobEngine.submit(monitorRequest, 0);
+    }
+
+    /**
+     * Read an integer init parameter, falling back to a default when absent or invalid
+     */
+    private int getIntInitParameter(String name, int defaultValue) {
+        String value = getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid value for init parameter " + name + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     /**
      * Handle GET requests
      */
@@ -94,24 +346,39 @@ public class MonitorServlet extends HttpServlet {
         String pathInfo = request.getPathInfo();
 
         if (pathInfo == null || pathInfo.equals("/")) {
-            sendErrorResponse(response, "API endpoint not specified", HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(request, response, "API endpoint not specified", HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
 
         try {
+            if (pathInfo.startsWith("/jobs/")) {
+                String jobPath = pathInfo.substring("/jobs/".length());
+                if (jobPath.endsWith("/stream")) {
+                    handleStreamJob(jobPath.substring(0, jobPath.length() - "/stream".length()), request, response);
+                } else if (jobPath.endsWith("/delta")) {
+                    handleGetJobDelta(jobPath.substring(0, jobPath.length() - "/delta".length()), request, response);
+                } else {
+                    handleGetJob(jobPath, request, response);
+                }
+                return;
+            }
+
             switch (pathInfo) {
                 case "/categories":
-                    handleGetCategories(response);
+                    handleGetCategories(request, response);
                     break;
                 case "/reports":
-                    handleGetReports(response);
+                    handleGetReports(request, response);
+                    break;
+                case "/stats":
+                    handleGetStats(request, response);
                     break;
                 default:
-                    sendErrorResponse(response, "Unknown endpoint: " + pathInfo, HttpServletResponse.SC_NOT_FOUND);
+                    sendErrorResponse(request, response, "Unknown endpoint: " + pathInfo, HttpServletResponse.SC_NOT_FOUND);
             }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error handling GET request: " + pathInfo, e);
-            sendErrorResponse(response, "Internal server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            sendErrorResponse(request, response, "Internal server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 
@@ -125,7 +392,7 @@ public class MonitorServlet extends HttpServlet {
         String pathInfo = request.getPathInfo();
 
         if (pathInfo == null || pathInfo.equals("/")) {
-            sendErrorResponse(response, "API endpoint not specified", HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(request, response, "API endpoint not specified", HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
 
@@ -133,40 +400,374 @@ public class MonitorServlet extends HttpServlet {
             if ("/run-monitor".equals(pathInfo)) {
                 handleRunMonitor(request, response);
             } else {
-                sendErrorResponse(response, "Unknown endpoint: " + pathInfo, HttpServletResponse.SC_NOT_FOUND);
+                sendErrorResponse(request, response, "Unknown endpoint: " + pathInfo, HttpServletResponse.SC_NOT_FOUND);
             }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error handling POST request: " + pathInfo, e);
-            sendErrorResponse(response, "Internal server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            sendErrorResponse(request, response, "Internal server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Handle DELETE requests
+     */
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        String pathInfo = request.getPathInfo();
+
+        if (pathInfo == null || !pathInfo.startsWith("/jobs/")) {
+            sendErrorResponse(request, response, "Unknown endpoint: " + pathInfo, HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        try {
+            handleCancelJob(pathInfo.substring("/jobs/".length()), request, response);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error handling DELETE request: " + pathInfo, e);
+            sendErrorResponse(request, response, "Internal server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
      * Get all monitoring categories
+     * The serialized response is built once per commands file version and revalidated via ETag
      */
-    private void handleGetCategories(HttpServletResponse response) throws IOException {
-        LOGGER.info("Fetching monitoring categories");
+    private void handleGetCategories(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CommandsModel model = commandsModel;
+        if (isPrettyRequested(request)) {
+            sendJsonResponse(request, response, new ApiResponse<>(true, getCategories(model), null), HttpServletResponse.SC_OK);
+            return;
+        }
+
+        PrecomputedResponse precomputed = categoriesResponse;
 
-        List<Category> categories = getCategories();
-        ApiResponse<List<Category>> apiResponse = new ApiResponse<>(true, categories, null);
+        if (precomputed == null || precomputed.getVersion() != model.getVersion()) {
+            LOGGER.info("Building categories response for commands file version " + model.getVersion());
+            ApiResponse<List<Category>> apiResponse = new ApiResponse<>(true, getCategories(model), null);
+            precomputed = PrecomputedResponse.of(gson.toJson(apiResponse), model.getLastModified(), model.getVersion());
+            categoriesResponse = precomputed;
+        }
 
-        sendJsonResponse(response, apiResponse, HttpServletResponse.SC_OK);
+        precomputed.write(request, response);
     }
 
     /**
-     * Get list of generated reports
+     * Get a page of generated reports
+     * Supports limit, cursor, since/until (ISO-8601 or epoch millis), group and mode filters
      */
-    private void handleGetReports(HttpServletResponse response) throws IOException {
+    private void handleGetReports(HttpServletRequest request, HttpServletResponse response) throws IOException {
         LOGGER.info("Fetching reports list");
 
-        List<ReportFile> reports = getReportsList();
-        ApiResponse<List<ReportFile>> apiResponse = new ApiResponse<>(true, reports, null);
+        int limit;
+        long since;
+        long until;
+        try {
+            limit = parseLimit(request.getParameter("limit"));
+            since = parseTimeParameter(request.getParameter("since"), Long.MIN_VALUE);
+            until = parseTimeParameter(request.getParameter("until"), Long.MAX_VALUE);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(request, response, e.getMessage(), HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        String group = request.getParameter("group");
+        if (group != null && !group.matches("^[A-Z]$")) {
+            sendErrorResponse(request, response, "Invalid group name: " + group, HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
-        sendJsonResponse(response, apiResponse, HttpServletResponse.SC_OK);
+        ReportIndex.Page page;
+        try {
+            page = reportIndex.query(since, until, group, request.getParameter("mode"),
+                    request.getParameter("cursor"), limit);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(request, response, "Invalid cursor", HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        List<ReportFile> reports = page.getEntries().stream()
+                .map(this::toReportFile)
+                .collect(Collectors.toList());
+        PagedApiResponse<List<ReportFile>> apiResponse = new PagedApiResponse<>(reports, page.getNextCursor());
+
+        sendJsonResponse(request, response, apiResponse, HttpServletResponse.SC_OK);
     }
 
     /**
-     * Execute monitoring script with selected groups
+     * Parse the page size, defaulting to MAX_REPORTS_TO_RETURN
+     */
+    private int parseLimit(String value) {
+        if (value == null) {
+            return MAX_REPORTS_TO_RETURN;
+        }
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit < 1 || limit > MAX_REPORTS_PAGE_SIZE) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_REPORTS_PAGE_SIZE);
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid limit: " + value);
+        }
+    }
+
+    /**
+     * Parse a timestamp given as epoch millis or ISO-8601 instant
+     */
+    private long parseTimeParameter(String value, long defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(value).toEpochMilli();
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid timestamp: " + value);
+            }
+        }
+    }
+
+    /**
+     * Get runtime statistics
+     */
+    private void handleGetStats(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jobs", jobEngine.getStats());
+        stats.put("runningScripts", maxConcurrentScripts - scriptSlots.availablePermits());
+        stats.put("resultCache", resultCache.getStats());
+        stats.put("commandCache", commandCache.getStats());
+        stats.put("schedules", scheduler.getStatus());
+
+        ApiResponse<Map<String, Object>> apiResponse = new ApiResponse<>(true, stats, null);
+        sendJsonResponse(request, response, apiResponse, HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Get status and result of a monitoring job
+     */
+    private void handleGetJob(String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MonitorJob job = jobEngine.getJob(jobId);
+        if (job == null) {
+            sendErrorResponse(request, response, "Unknown job: " + jobId, HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        ApiResponse<MonitorJob> apiResponse = new ApiResponse<>(true, job, null);
+        sendJsonResponse(request, response, apiResponse, HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Get the per-command changes of a finished native run compared with each command's previous run
+     * Only new and changed commands are returned unless all=true
+     */
+    private void handleGetJobDelta(String jobId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        MonitorJob job = jobEngine.getJob(jobId);
+        if (job == null) {
+            sendErrorResponse(request, response, "Unknown job: " + jobId, HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!job.getStatus().isFinished()) {
+            sendErrorResponse(request, response, "Job has not finished yet", HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+        if (job.getDelta() == null) {
+            sendErrorResponse(request, response, "No delta for job " + jobId + ", only native runs are fingerprinted",
+                    HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean all = "true".equals(request.getParameter("all"));
+        List<OutputFingerprints.CommandDelta> delta = job.getDelta().stream()
+                .filter(d -> all || d.getChange() != OutputFingerprints.Change.UNCHANGED)
+                .collect(Collectors.toList());
+
+        ApiResponse<List<OutputFingerprints.CommandDelta>> apiResponse = new ApiResponse<>(true, delta, null);
+        sendJsonResponse(request, response, apiResponse, HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Cancel a queued or running job, killing its whole process tree
+     * Returns 200 once the job is cancelled, 202 while a running job is still being torn down,
+     * and 409 if it had already finished
+     */
+    private void handleCancelJob(String jobId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        MonitorJob job = jobEngine.getJob(jobId);
+        if (job == null) {
+            sendErrorResponse(request, response, "Unknown job: " + jobId, HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (job.getStatus().isFinished()) {
+            sendErrorResponse(request, response, "Job already finished with status " + job.getStatus(), HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+
+        jobEngine.cancel(jobId);
+
+        ApiResponse<MonitorJob> apiResponse = new ApiResponse<>(true, job, null);
+        sendJsonResponse(request, response, apiResponse,
+                job.getStatus().isFinished() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_ACCEPTED);
+    }
+
+    /**
+     * Stream live script output of a job as Server-Sent Events
+     * Emits "output" events per line, "dropped" when this client fell behind, and a final "done" event with the job
+     */
+    private void handleStreamJob(String jobId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        MonitorJob job = jobEngine.getJob(jobId);
+        if (job == null) {
+            sendErrorResponse(request, response, "Unknown job: " + jobId, HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (!streamSlots.tryAcquire()) {
+            // Refused before any stream headers: EventSource does not reconnect after a non-200 response
+            LOGGER.warning("Rejected output stream for job " + jobId + ": too many subscribers");
+            response.setHeader("Retry-After", String.valueOf(STREAM_RETRY_AFTER_SECONDS));
+            sendErrorResponse(request, response, "Too many live output streams, retry in "
+                    + STREAM_RETRY_AFTER_SECONDS + " seconds", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        JobOutputBroadcaster output = job.getOutput();
+        JobOutputBroadcaster.Subscription subscription = output.subscribe(STREAM_BUFFER_LINES);
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(TimeUnit.MINUTES.toMillis(SCRIPT_TIMEOUT_MINUTES + ASYNC_TIMEOUT_GRACE_MINUTES));
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                output.unsubscribe(subscription);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                output.unsubscribe(subscription);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                output.unsubscribe(subscription);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        try {
+            streamExecutor.execute(() -> pumpJobOutput(asyncContext, job, subscription));
+        } catch (RejectedExecutionException e) {
+            // Only after shutdown: the pool itself is unbounded
+            streamSlots.release();
+            output.unsubscribe(subscription);
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * Copy buffered output lines to an SSE client until the job finishes or the client goes away
+     */
+    private void pumpJobOutput(AsyncContext asyncContext, MonitorJob job, JobOutputBroadcaster.Subscription subscription) {
+        JobOutputBroadcaster output = job.getOutput();
+        List<String> batch = new ArrayList<>();
+
+        try {
+            PrintWriter out = asyncContext.getResponse().getWriter();
+
+            while (!subscription.isCancelled()) {
+                String line = subscription.poll(STREAM_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+
+                if (line != null) {
+                    batch.add(line);
+                    subscription.drainTo(batch);
+                } else if (output.isClosed()) {
+                    // Lines published before close may have arrived after the poll timed out
+                    subscription.drainTo(batch);
+                    writeOutputEvents(out, subscription, batch);
+                    out.write("event: done\ndata: " + gson.toJson(job) + "\n\n");
+                    out.flush();
+                    break;
+                } else {
+                    out.write(": keepalive\n\n");
+                }
+
+                writeOutputEvents(out, subscription, batch);
+                if (out.checkError()) {
+                    LOGGER.fine("Output stream client disconnected for job " + job.getId());
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.log(Level.FINE, "Output stream ended for job " + job.getId(), e);
+        } finally {
+            output.unsubscribe(subscription);
+            streamSlots.release();
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by timeout or error
+            }
+        }
+    }
+
+    /**
+     * Write pending lines as SSE events, preceded by a notice if lines were dropped
+     */
+    private void writeOutputEvents(PrintWriter out, JobOutputBroadcaster.Subscription subscription, List<String> batch) {
+        long dropped = subscription.takeDropped();
+        if (dropped > 0) {
+            out.write("event: dropped\ndata: " + dropped + "\n\n");
+        }
+        for (String line : batch) {
+            out.write("event: output\n");
+            writeEventData(out, line);
+            out.write('\n');
+        }
+        batch.clear();
+        out.flush();
+    }
+
+    /**
+     * Write text as "data:" lines; a bare CR (progress output) would otherwise end the SSE line early
+     * and let the rest of the text be parsed as a field of its own
+     */
+    private static void writeEventData(PrintWriter out, String text) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\n') {
+                out.write("data: ");
+                out.write(text, start, i - start);
+                out.write('\n');
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        out.write("data: ");
+        out.write(text, start, text.length() - start);
+        out.write('\n');
+    }
+
+    /**
+     * Queue monitoring script execution with selected groups
+     * Returns immediately with a job that can be polled via /api/jobs/{id},
+     * or with ?wait=true holds the response open asynchronously until the job finishes
      */
     private void handleRunMonitor(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
@@ -185,20 +786,20 @@ public class MonitorServlet extends HttpServlet {
             monitorRequest = gson.fromJson(requestBody.toString(), MonitorRequest.class);
         } catch (JsonSyntaxException e) {
             LOGGER.warning("Invalid JSON in request: " + e.getMessage());
-            sendErrorResponse(response, "Invalid JSON format", HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(request, response, "Invalid JSON format", HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
 
         // Validate request
         if (monitorRequest == null || monitorRequest.groups == null || monitorRequest.groups.isEmpty()) {
-            sendErrorResponse(response, "No groups selected", HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(request, response, "No groups selected", HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
 
         // Validate group names (prevent injection)
         for (String group : monitorRequest.groups) {
             if (!group.matches("^[A-Z]$")) {
-                sendErrorResponse(response, "Invalid group name: " + group, HttpServletResponse.SC_BAD_REQUEST);
+                sendErrorResponse(request, response, "Invalid group name: " + group, HttpServletResponse.SC_BAD_REQUEST);
                 return;
             }
         }
@@ -206,30 +807,176 @@ public class MonitorServlet extends HttpServlet {
         // Validate mode
         String mode = monitorRequest.mode != null ? monitorRequest.mode : "actionable";
         if (!mode.equals("actionable") && !mode.equals("verbose")) {
-            sendErrorResponse(response, "Invalid mode: " + mode, HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(request, response, "Invalid mode: " + mode, HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
+        monitorRequest.setMode(mode);
 
-        LOGGER.info("Executing monitor for groups: " + String.join(", ", monitorRequest.groups) + " in mode: " + mode);
+        // Validate runner
+        String runner = monitorRequest.runner != null ? monitorRequest.runner : defaultRunner;
+        if (!runner.equals(RUNNER_SCRIPT) && !runner.equals(RUNNER_NATIVE)) {
+            sendErrorResponse(request, response, "Invalid runner: " + runner, HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        monitorRequest.setRunner(runner);
 
-        // Create temporary commands file
-        File tempFile = null;
+        // Changed-only reports rely on per-command fingerprints, which only the native runner has
+        if (monitorRequest.isChangedOnly() && !runner.equals(RUNNER_NATIVE)) {
+            sendErrorResponse(request, response, "changedOnly requires the native runner", HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        // Validate shard count
+        int shards = monitorRequest.shards != null ? monitorRequest.shards : defaultShards;
+        if (shards < 1 || shards > MAX_SHARDS) {
+            sendErrorResponse(request, response, "shards must be between 1 and " + MAX_SHARDS, HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        monitorRequest.setShards(shards);
+
+        // Validate priority
         try {
-            tempFile = createFilteredCommandsFile(monitorRequest.groups);
+            monitorRequest.setPriority(MonitorJob.Priority.fromName(monitorRequest.priority).name().toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(request, response, "Invalid priority: " + monitorRequest.priority, HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
-            // Execute the monitoring script
-            MonitorResult result = executeMonitoringScript(tempFile, mode);
+        // Optional freshness requirement for cached results, in seconds
+        long maxAgeMillis = -1;
+        String maxAge = request.getParameter("maxAge");
+        if (maxAge != null) {
+            try {
+                maxAgeMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(maxAge));
+            } catch (NumberFormatException e) {
+                sendErrorResponse(request, response, "Invalid maxAge: " + maxAge, HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+        }
 
-            if (result.success) {
-                ApiResponse<MonitorResult> apiResponse = new ApiResponse<>(true, result, null);
-                sendJsonResponse(response, apiResponse, HttpServletResponse.SC_OK);
-            } else {
-                sendErrorResponse(response, result.message, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        // A cached changed-only result would describe the delta of an earlier run
+        if (monitorRequest.isChangedOnly()) {
+            maxAgeMillis = 0;
+        }
+
+        LOGGER.info("Queueing monitor for groups: " + String.join(", ", monitorRequest.groups) + " in mode: " + mode);
+
+        MonitorJob job;
+        try {
+            job = jobEngine.submit(monitorRequest, maxAgeMillis);
+        } catch (RejectedExecutionException e) {
+            long retryAfter = jobEngine.estimateRetryAfterSeconds();
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            sendErrorResponse(request, response, "Too many monitoring runs in progress, retry in " + retryAfter + " seconds",
+                    SC_TOO_MANY_REQUESTS);
+            return;
+        }
+
+        response.setHeader("Location", request.getContextPath() + "/api/jobs/" + job.getId());
+
+        if ("true".equals(request.getParameter("wait"))) {
+            awaitJobAsync(request, response, job);
+            return;
+        }
+
+        ApiResponse<MonitorJob> apiResponse = new ApiResponse<>(true, job, null);
+        sendJsonResponse(request, response, apiResponse,
+                job.getStatus().isFinished() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_ACCEPTED);
+    }
+
+    /**
+     * Release the container thread and complete the response once the job finishes
+     * If the async timeout fires first, the still-running job is returned with 202 so the client can poll
+     */
+    private void awaitJobAsync(HttpServletRequest request, HttpServletResponse response, MonitorJob job) {
+        // Keep the filters' wrappers, so the JSON written on completion is still compressed
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(TimeUnit.MINUTES.toMillis(SCRIPT_TIMEOUT_MINUTES + ASYNC_TIMEOUT_GRACE_MINUTES));
+
+        AtomicBoolean responded = new AtomicBoolean(false);
+
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (responded.compareAndSet(false, true)) {
+                    LOGGER.warning("Async wait timed out for job " + job.getId());
+                    completeAsync(asyncContext, job, HttpServletResponse.SC_ACCEPTED);
+                }
             }
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to execute monitoring script", e);
-            sendErrorResponse(response, "Script execution failed: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            @Override
+            public void onError(AsyncEvent event) {
+                responded.set(true);
+                LOGGER.log(Level.WARNING, "Async request failed for job " + job.getId(), event.getThrowable());
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // The callback runs on the job engine worker that completed the job; serializing and
+        // writing to a possibly slow client happens on a container thread instead
+        job.whenFinished(finished -> {
+            if (responded.compareAndSet(false, true)) {
+                try {
+                    asyncContext.start(() -> completeAsync(asyncContext, finished, HttpServletResponse.SC_OK));
+                } catch (IllegalStateException e) {
+                    LOGGER.log(Level.WARNING, "Async request for job " + finished.getId() + " ended before completion", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Write the job as the response of an async request and complete it
+     */
+    private void completeAsync(AsyncContext asyncContext, MonitorJob job, int statusCode) {
+        try {
+            HttpServletResponse asyncResponse = (HttpServletResponse) asyncContext.getResponse();
+            sendJsonResponse((HttpServletRequest) asyncContext.getRequest(), asyncResponse,
+                    new ApiResponse<>(true, job, null), statusCode);
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.log(Level.WARNING, "Failed to send async response for job " + job.getId(), e);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * Run a queued job on a job engine worker thread
+     */
+    private MonitorResult runJob(MonitorJob job) throws IOException, InterruptedException {
+        File reportFile = new File(reportsDirectory, reportFileName(job));
+
+        MonitorResult result;
+        if (RUNNER_NATIVE.equals(job.getRunner())) {
+            result = executeNativeCommands(job, reportFile);
+        } else if (job.getShards() > 1 && new HashSet<>(job.getGroups()).size() > 1) {
+            result = executeShardedScriptJob(job, reportFile);
+        } else {
+            result = executeScriptJob(job, reportFile);
+        }
+
+        if (result.getReportFile() != null) {
+            reportIndex.record(new File(reportsDirectory, result.getReportFile()).toPath(), job.getGroups(), job.getMode());
+        }
+        return result;
+    }
+
+    /**
+     * Run the monitoring script against a filtered copy of the commands file
+     */
+    private MonitorResult executeScriptJob(MonitorJob job, File reportFile) throws IOException, InterruptedException {
+        File tempFile = null;
+        try {
+            tempFile = createFilteredCommandsFile(job.getId(), job.getGroups());
+            return executeMonitoringScript(tempFile, job.getMode(), reportFile, job.getOutput()::publish,
+                    outputLogFile(job.getId()));
         } finally {
             // Clean up temp file
             if (tempFile != null && tempFile.exists()) {
@@ -239,14 +986,242 @@ public class MonitorServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Split the groups into shards, run one script process per shard in parallel and merge the results
+     * Groups are assigned largest-first to the shard with the fewest commands so far, to balance run time
+     */
+    private MonitorResult executeShardedScriptJob(MonitorJob job, File reportFile) throws IOException, InterruptedException {
+        List<List<String>> shards = assignShards(new TreeSet<>(job.getGroups()), job.getShards());
+        long startedAt = System.currentTimeMillis();
+        List<Future<MonitorResult>> futures = new ArrayList<>();
+        List<File> shardReports = new ArrayList<>();
+        List<String> titles = new ArrayList<>();
+
+        LOGGER.info("Executing job " + job.getId() + " in " + shards.size() + " shards: " + shards);
+
+        for (int i = 0; i < shards.size(); i++) {
+            List<String> groups = shards.get(i);
+            String shardId = job.getId() + "_" + (i + 1);
+            String prefix = "[shard " + (i + 1) + "] ";
+            File shardReport = new File(reportsDirectory, "shard_" + shardId + ".html");
+
+            shardReports.add(shardReport);
+            titles.add("Groups " + String.join(", ", groups));
+            futures.add(shardExecutor.submit(() -> {
+                File tempFile = createFilteredCommandsFile(shardId, groups);
+                try {
+                    return executeMonitoringScript(tempFile, job.getMode(), shardReport,
+                            line -> job.getOutput().publish(prefix + line), outputLogFile(shardId));
+                } finally {
+                    tempFile.delete();
+                }
+            }));
+        }
+
+        // Shards run in parallel, so together they get the time a single script run gets
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(SCRIPT_TIMEOUT_MINUTES);
+        List<String> failures = new ArrayList<>();
+        StringBuilder output = new StringBuilder();
+        List<File> parts = new ArrayList<>(shardReports);
+        List<File> scriptReports = new ArrayList<>();
+        Set<String> claimed = new HashSet<>();
+        try {
+            List<MonitorResult> shardResults = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                MonitorResult shardResult;
+                try {
+                    shardResult = futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    shardResult = new MonitorResult(false, "Shard failed: " + e.getCause().getMessage(), null, null, null);
+                } catch (TimeoutException e) {
+                    // Interrupting the shard kills its script's process tree
+                    futures.get(i).cancel(true);
+                    shardResult = new MonitorResult(false, "Shard timed out after " + SCRIPT_TIMEOUT_MINUTES + " minutes",
+                            null, null, null);
+                }
+                shardResults.add(shardResult);
+
+                if (!shardResult.isSuccess()) {
+                    failures.add(titles.get(i) + ": " + shardResult.getMessage());
+                } else if (!shardReports.get(i).exists() && shardResult.getReportFile() != null
+                        && claimed.add(shardResult.getReportFile())) {
+                    // Script ignored REPORT_FILE: use the report it wrote itself, as for unsharded runs
+                    parts.set(i, new File(reportsDirectory, shardResult.getReportFile()));
+                }
+                if (shardResult.getOutput() != null) {
+                    output.append("== ").append(titles.get(i)).append(" ==\n").append(shardResult.getOutput());
+                }
+            }
+
+            // Shards that finished together may have picked the same newest report; hand out the others
+            List<File> unclaimed = findReportsSince(startedAt);
+            unclaimed.removeIf(report -> claimed.contains(report.getName()) || report.equals(reportFile));
+            for (int i = 0; i < parts.size(); i++) {
+                File part = parts.get(i);
+                if (!shardResults.get(i).isSuccess() || part.exists()) {
+                    continue;
+                }
+                if (!unclaimed.isEmpty()) {
+                    parts.set(i, unclaimed.remove(0));
+                    LOGGER.warning("Attributing report " + parts.get(i).getName() + " to " + titles.get(i));
+                } else {
+                    failures.add(titles.get(i) + ": no report was produced");
+                }
+            }
+            for (int i = 0; i < parts.size(); i++) {
+                if (!parts.get(i).equals(shardReports.get(i))) {
+                    scriptReports.add(parts.get(i));
+                }
+            }
+
+            HtmlReportWriter.merge(reportFile, titles, parts);
+            // Their content now lives in the job's report; left behind they would be listed as separate runs
+            scriptReports.forEach(File::delete);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            shardReports.forEach(File::delete);
+        }
+
+        String preview = output.toString();
+        String reportUrl = "/reports/" + reportFile.getName();
+        if (!failures.isEmpty()) {
+            LOGGER.warning("Sharded job " + job.getId() + " had failures: " + failures);
+            return new MonitorResult(false, "Shard execution failed: " + String.join("; ", failures),
+                    reportFile.getName(), reportUrl, preview);
+        }
+
+        LOGGER.info("Sharded script execution completed successfully. Report: " + reportFile.getName());
+        return new MonitorResult(true, "Monitoring script executed successfully in " + shards.size() + " shards",
+                reportFile.getName(), reportUrl, preview);
+    }
+
+    /**
+     * Distribute groups over at most shardCount shards, balancing by command count
+     */
+    private List<List<String>> assignShards(Set<String> groups, int shardCount) {
+        Map<String, List<String>> commandsByGroup = commandsModel.getCommandsByGroup();
+        List<String> bySize = new ArrayList<>(groups);
+        bySize.sort(Comparator.comparingInt((String g) -> commandsByGroup.getOrDefault(g, Collections.emptyList()).size())
+                .reversed());
+
+        int count = Math.min(shardCount, groups.size());
+        List<List<String>> shards = new ArrayList<>();
+        int[] load = new int[count];
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+
+        for (String group : bySize) {
+            int target = 0;
+            for (int i = 1; i < count; i++) {
+                if (load[i] < load[target]) {
+                    target = i;
+                }
+            }
+            shards.get(target).add(group);
+            load[target] += commandsByGroup.getOrDefault(group, Collections.emptyList()).size();
+        }
+
+        shards.forEach(Collections::sort);
+        return shards;
+    }
+
+    /**
+     * Run the selected groups' commands concurrently in the JVM and write the report directly
+     */
+    private MonitorResult executeNativeCommands(MonitorJob job, File reportFile) throws IOException, InterruptedException {
+        Map<String, List<String>> commandsByGroup = commandsModel.getCommandsByGroup();
+        Map<String, List<String>> selected = new LinkedHashMap<>();
+        for (String group : new TreeSet<>(job.getGroups())) {
+            List<String> commands = commandsByGroup.get(group);
+            if (commands != null) {
+                selected.put(group, commands);
+            }
+        }
+
+        LOGGER.info("Executing " + selected.values().stream().mapToInt(List::size).sum()
+                + " commands natively for groups: " + String.join(", ", selected.keySet()));
+
+        long start = System.currentTimeMillis();
+        List<CommandRunner.CommandResult> results = commandRunner.run(selected,
+                result -> publishCommandResult(job.getOutput(), result),
+                TimeUnit.MINUTES.toMillis(SCRIPT_TIMEOUT_MINUTES));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Fingerprint every native run, so changed-only runs compare against the latest result of each command
+        List<OutputFingerprints.CommandDelta> delta = new ArrayList<>(results.size());
+        List<CommandRunner.CommandResult> changed = new ArrayList<>();
+        for (CommandRunner.CommandResult result : results) {
+            OutputFingerprints.CommandDelta commandDelta = fingerprints.record(result);
+            delta.add(commandDelta);
+            if (commandDelta.getChange() != OutputFingerprints.Change.UNCHANGED) {
+                changed.add(result);
+            }
+        }
+        job.setDelta(delta);
+
+        if (job.isChangedOnly()) {
+            HtmlReportWriter.write(reportFile, changed, getCategoryDescriptions(), "verbose".equals(job.getMode()),
+                    results.size() - changed.size());
+        } else {
+            HtmlReportWriter.write(reportFile, results, getCategoryDescriptions(), "verbose".equals(job.getMode()), 0);
+        }
+
+        long failed = results.stream().filter(r -> !r.isSuccess()).count();
+        StringBuilder summary = new StringBuilder();
+        for (CommandRunner.CommandResult result : results) {
+            if (summary.length() >= OUTPUT_PREVIEW_CHARS) {
+                break;
+            }
+            if (!result.isSuccess()) {
+                summary.append(result.getGroup()).append(": ").append(result.getCommand())
+                        .append(result.isTimedOut() ? " (timed out)" : " (exit " + result.getExitCode() + ")").append("\n");
+            }
+        }
+
+        long cached = results.stream().filter(CommandRunner.CommandResult::isCached).count();
+        String message = "Executed " + results.size() + " commands in " + elapsed + " ms (" + failed + " failed, "
+                + changed.size() + " changed, " + cached + " from cache)";
+        LOGGER.info(message + ". Report: " + reportFile.getName());
+
+        return new MonitorResult(true, message, reportFile.getName(), "/reports/" + reportFile.getName(),
+                summary.substring(0, Math.min(OUTPUT_PREVIEW_CHARS, summary.length())));
+    }
+
+    /**
+     * Publish a finished command and its output to live stream subscribers
+     */
+    private void publishCommandResult(JobOutputBroadcaster output, CommandRunner.CommandResult result) {
+        output.publish("[" + result.getGroup() + "] " + result.getCommand() + " -> "
+                + (result.isTimedOut() ? "timed out" : "exit " + result.getExitCode())
+                + " (" + result.getDurationMillis() + " ms)");
+        for (String line : result.getOutput().split("\n")) {
+            output.publish(line);
+        }
+    }
+
+    /**
+     * Log file for the full output of a job or shard, or null if output logs are disabled
+     */
+    private Path outputLogFile(String id) {
+        return outputLogDirectory != null ? new File(outputLogDirectory, "job_" + id + ".log").toPath() : null;
+    }
+
+    /**
+     * Report file name reserved for a job: daily_<timestamp>_<job id prefix>.html
+     */
+    private String reportFileName(MonitorJob job) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(job.getStarted());
+        return "daily_" + timestamp + "_" + job.getId().substring(0, 8) + ".html";
+    }
+
     /**
      * Create filtered commands file with only selected groups
      */
-    private File createFilteredCommandsFile(List<String> groups) throws IOException {
-        String tempFileName = "temp_commands_" + System.currentTimeMillis() + ".list";
+    private File createFilteredCommandsFile(String jobId, List<String> groups) throws IOException {
+        String tempFileName = "temp_commands_" + jobId + ".list";
         File tempFile = new File(scriptDir, tempFileName);
 
-        List<String> lines = Files.readAllLines(commandsFile.toPath());
         List<String> selectedLines = new ArrayList<>();
 
         // Add header
@@ -258,21 +1233,7 @@ public class MonitorServlet extends HttpServlet {
         selectedLines.add("");
 
         // Filter lines by selected groups
-        Set<String> groupSet = new HashSet<>(groups);
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (trimmed.startsWith("#") || trimmed.isEmpty()) {
-                selectedLines.add(line);
-            } else if (line.contains("|")) {
-                String[] parts = line.split("\\|", 2);
-                if (parts.length >= 1) {
-                    String category = parts[0].trim();
-                    if (groupSet.contains(category)) {
-                        selectedLines.add(line);
-                    }
-                }
-            }
-        }
+        selectedLines.addAll(commandsModel.filter(new HashSet<>(groups)));
 
         Files.write(tempFile.toPath(), selectedLines);
         LOGGER.info("Created filtered commands file: " + tempFile.getName() + " with " + selectedLines.size() + " lines");
@@ -282,8 +1243,13 @@ public class MonitorServlet extends HttpServlet {
 
     /**
      * Execute the monitoring script
+     * The script is told where to write its report via REPORT_FILE, so the report is attributed to this run.
+     * Every output line is handed to the listener as it is read; only the head and tail of the output
+     * are retained in memory, the full output goes to the log file if one is given
      */
-    private MonitorResult executeMonitoringScript(File commandsFile, String mode) throws IOException, InterruptedException {
+    private MonitorResult executeMonitoringScript(File commandsFile, String mode, File reportFile,
+                                                  Consumer<String> outputListener, Path logFile)
+            throws IOException, InterruptedException {
         File scriptFile = new File(scriptDir, SCRIPT_NAME);
 
         if (!scriptFile.exists()) {
@@ -296,124 +1262,140 @@ public class MonitorServlet extends HttpServlet {
         ProcessBuilder pb = new ProcessBuilder("bash", scriptFile.getAbsolutePath(), verboseFlag);
         pb.directory(new File(scriptDir));
         pb.environment().put("COMMANDS_FILE", commandsFile.getAbsolutePath());
+        pb.environment().put("REPORT_FILE", reportFile.getAbsolutePath());
         pb.redirectErrorStream(true);
 
         LOGGER.info("Executing: bash " + scriptFile.getAbsolutePath() + " " + verboseFlag);
 
-        Process process = pb.start();
-
-        // Read output with timeout
-        StringBuilder output = new StringBuilder();
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+        scriptSlots.acquire();
+        try {
+            return runScriptProcess(pb, reportFile, new OutputCapture(OUTPUT_HEAD_BYTES, OUTPUT_TAIL_BYTES,
+                    outputListener, logFile));
+        } finally {
+            scriptSlots.release();
+        }
+    }
 
+    /**
+     * Start the script process, drain its output on the shared process I/O executor and build the result
+     */
+    private MonitorResult runScriptProcess(ProcessBuilder pb, File reportFile, OutputCapture output)
+            throws IOException, InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        Process process;
         try {
-            Future<Integer> future = executor.submit(() -> {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        if (output.length() > MAX_BUFFER_SIZE) {
-                            break; // Prevent memory overflow
-                        }
-                    }
-                }
-                return process.waitFor();
-            });
+            process = pb.start();
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
 
+        // Read output with timeout on the shared process I/O executor
+        Future<Integer> future = processIoExecutor.submit(() -> {
+            try (InputStream in = process.getInputStream()) {
+                output.drain(in);
+            } finally {
+                output.close();
+            }
+            return process.waitFor();
+        });
+
+        try {
             int exitCode = future.get(SCRIPT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
 
             if (exitCode != 0) {
                 LOGGER.warning("Script execution failed with exit code: " + exitCode);
                 return new MonitorResult(false, "Script execution failed with exit code: " + exitCode,
-                                       null, null, output.toString().substring(0, Math.min(1000, output.length())));
+                                       null, null, output.preview());
             }
 
-            // Find the latest report
-            String latestReport = findLatestReport();
-            String reportUrl = latestReport != null ? "/reports/" + latestReport : null;
+            // Use the report written to REPORT_FILE, falling back to the newest report of this run
+            String report = reportFile.exists() ? reportFile.getName() : findLatestReportSince(startedAt);
+            String reportUrl = report != null ? "/reports/" + report : null;
 
-            LOGGER.info("Script execution completed successfully. Report: " + latestReport);
+            LOGGER.info("Script execution completed successfully. Report: " + report + " (" + output.getTotalBytes()
+                    + " bytes of output" + (output.getSpillFile() != null ? ", logged to " + output.getSpillFile() : "") + ")");
 
             return new MonitorResult(true, "Monitoring script executed successfully",
-                                   latestReport, reportUrl, output.toString().substring(0, Math.min(1000, output.length())));
+                                   report, reportUrl, output.preview());
 
         } catch (TimeoutException e) {
-            process.destroyForcibly();
+            ProcessTrees.destroyForcibly(process);
             LOGGER.severe("Script execution timed out after " + SCRIPT_TIMEOUT_MINUTES + " minutes");
-            return new MonitorResult(false, "Script execution timed out", null, null, null);
+            return new MonitorResult(false, "Script execution timed out", null, null, output.preview());
+        } catch (InterruptedException e) {
+            // Job cancelled or servlet shutting down: take the script's children down with it
+            ProcessTrees.destroyForcibly(process);
+            throw e;
+        } catch (ExecutionException e) {
+            ProcessTrees.destroyForcibly(process);
+            LOGGER.log(Level.SEVERE, "Failed to read script output", e.getCause());
+            return new MonitorResult(false, "Failed to read script output: " + e.getCause().getMessage(), null, null, null);
         } finally {
-            executor.shutdownNow();
+            future.cancel(true);
         }
     }
 
     /**
-     * Find the most recently created report file
+     * Find the most recent report created since the given time
+     * Only used for scripts that ignore REPORT_FILE; may pick up a concurrent run's report
      */
-    private String findLatestReport() {
-        File[] files = reportsDirectory.listFiles((dir, name) ->
-            name.startsWith("daily_") && name.endsWith(".html"));
-
-        if (files == null || files.length == 0) {
+    private String findLatestReportSince(long since) {
+        List<File> reports = findReportsSince(since);
+        if (reports.isEmpty()) {
             return null;
         }
-
-        File latest = Arrays.stream(files)
-                .max(Comparator.comparingLong(File::lastModified))
-                .orElse(null);
-
-        return latest != null ? latest.getName() : null;
+        String latest = reports.get(0).getName();
+        LOGGER.warning("Script did not write REPORT_FILE, attributing latest report: " + latest);
+        return latest;
     }
 
     /**
-     * Get list of all report files
+     * Reports modified since the given time, newest first
+     * Scans the directory itself: the report index is updated asynchronously by the directory
+     * watcher and may not have seen a report the script wrote just before exiting
      */
-    private List<ReportFile> getReportsList() {
-        File[] files = reportsDirectory.listFiles((dir, name) ->
-            name.startsWith("daily_") && name.endsWith(".html"));
-
-        if (files == null || files.length == 0) {
+    private List<File> findReportsSince(long since) {
+        // File systems with one-second timestamps truncate the script's write time
+        long threshold = since / 1000 * 1000;
+        File[] files = reportsDirectory.listFiles((dir, name) -> ReportIndex.isReportName(name));
+        if (files == null) {
             return Collections.emptyList();
         }
 
-        return Arrays.stream(files)
-                .sorted((a, b) -> Long.compare(b.lastModified(), a.lastModified()))
-                .limit(MAX_REPORTS_TO_RETURN)
-                .map(file -> new ReportFile(
-                        file.getName(),
-                        file.length(),
-                        new Date(file.lastModified()).toString(),
-                        "/reports/" + file.getName()
-                ))
-                .collect(Collectors.toList());
+        List<File> reports = new ArrayList<>();
+        for (File file : files) {
+            if (file.lastModified() >= threshold) {
+                reports.add(file);
+            }
+        }
+        reports.sort(Comparator.comparingLong(File::lastModified).reversed());
+        return reports;
+    }
+
+    private ReportFile toReportFile(ReportIndex.Entry entry) {
+        return new ReportFile(
+                entry.getName(),
+                entry.getSize(),
+                new Date(entry.getLastModified()).toString(),
+                "/reports/" + entry.getName(),
+                entry.getGroups(),
+                entry.getMode()
+        );
     }
 
     /**
-     * Parse categories from commands file
+     * Build categories from the in-memory commands model
      */
-    private List<Category> getCategories() throws IOException {
+    private List<Category> getCategories(CommandsModel model) {
         Map<String, String> categoryDescriptions = getCategoryDescriptions();
-        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
-
-        List<String> lines = Files.readAllLines(commandsFile.toPath());
-
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty() && !trimmed.startsWith("#") && line.contains("|")) {
-                String[] parts = line.split("\\|", 2);
-                if (parts.length >= 1) {
-                    String category = parts[0].trim();
-                    if (category.matches("^[A-Z]$")) {
-                        categoryCounts.put(category, categoryCounts.getOrDefault(category, 0) + 1);
-                    }
-                }
-            }
-        }
 
-        return categoryCounts.entrySet().stream()
+        return model.getCommandsByGroup().entrySet().stream()
+                .filter(entry -> entry.getKey().matches("^[A-Z]$"))
                 .map(entry -> new Category(
                         entry.getKey(),
                         categoryDescriptions.getOrDefault(entry.getKey(), "Category " + entry.getKey()),
-                        entry.getValue()
+                        entry.getValue().size()
                 ))
                 .sorted(Comparator.comparing(Category::getId))
                 .collect(Collectors.toList());
@@ -450,23 +1432,37 @@ public class MonitorServlet extends HttpServlet {
     /**
      * Send JSON response
      */
-    private void sendJsonResponse(HttpServletResponse response, Object data, int statusCode) throws IOException {
+    private void sendJsonResponse(HttpServletRequest request, HttpServletResponse response, Object data, int statusCode)
+            throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         response.setStatus(statusCode);
 
-        try (PrintWriter out = response.getWriter()) {
-            out.write(gson.toJson(data));
+        // Serialize straight into the response through a small buffer instead of building the whole body as a String
+        Gson profile = isPrettyRequested(request) ? prettyGson : gson;
+        try (JsonWriter out = profile.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), JSON_BUFFER_CHARS))) {
+            profile.toJson(data, data.getClass(), out);
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
         }
     }
 
+    /**
+     * Whether the response should be pretty printed: always with the "pretty" JSON profile, otherwise on ?pretty=1
+     */
+    private boolean isPrettyRequested(HttpServletRequest request) {
+        return prettyByDefault || "1".equals(request.getParameter("pretty"));
+    }
+
     /**
      * Send error response
      */
-    private void sendErrorResponse(HttpServletResponse response, String message, int statusCode) throws IOException {
+    private void sendErrorResponse(HttpServletRequest request, HttpServletResponse response, String message,
+                                   int statusCode) throws IOException {
         LOGGER.warning("Sending error response: " + message + " (status: " + statusCode + ")");
         ApiResponse<Object> error = new ApiResponse<>(false, null, message);
-        sendJsonResponse(response, error, statusCode);
+        sendJsonResponse(request, response, error, statusCode);
     }
 
     // ==================== Inner Classes ====================
@@ -490,6 +1486,20 @@ public class MonitorServlet extends HttpServlet {
         public String getError() { return error; }
     }
 
+    /**
+     * API response wrapper for one page of a paginated listing
+     */
+    static class PagedApiResponse<T> extends ApiResponse<T> {
+        private final String nextCursor;
+
+        public PagedApiResponse(T data, String nextCursor) {
+            super(true, data, null);
+            this.nextCursor = nextCursor;
+        }
+
+        public String getNextCursor() { return nextCursor; }
+    }
+
     /**
      * Category model
      */
@@ -517,18 +1527,24 @@ public class MonitorServlet extends HttpServlet {
         private final long size;
         private final String created;
         private final String url;
+        private final List<String> groups;
+        private final String mode;
 
-        public ReportFile(String name, long size, String created, String url) {
+        public ReportFile(String name, long size, String created, String url, List<String> groups, String mode) {
             this.name = name;
             this.size = size;
             this.created = created;
             this.url = url;
+            this.groups = groups;
+            this.mode = mode;
         }
 
         public String getName() { return name; }
         public long getSize() { return size; }
         public String getCreated() { return created; }
         public String getUrl() { return url; }
+        public List<String> getGroups() { return groups; }
+        public String getMode() { return mode; }
     }
 
     /**
@@ -537,11 +1553,23 @@ public class MonitorServlet extends HttpServlet {
     static class MonitorRequest {
         private List<String> groups;
         private String mode;
+        private String runner;
+        private Integer shards;
+        private String priority;
+        private Boolean changedOnly;
 
         public List<String> getGroups() { return groups; }
         public void setGroups(List<String> groups) { this.groups = groups; }
         public String getMode() { return mode; }
         public void setMode(String mode) { this.mode = mode; }
+        public String getRunner() { return runner; }
+        public void setRunner(String runner) { this.runner = runner; }
+        public Integer getShards() { return shards; }
+        public void setShards(Integer shards) { this.shards = shards; }
+        public String getPriority() { return priority; }
+        public void setPriority(String priority) { this.priority = priority; }
+        public boolean isChangedOnly() { return Boolean.TRUE.equals(changedOnly); }
+        public void setChangedOnly(Boolean changedOnly) { this.changedOnly = changedOnly; }
     }
 
     /**
@@ -0,0 +1,78 @@
+package com.openshift.monitor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.*;
+
+/**
+ * Thread factories for the application's executors
+ * In virtual mode threads are created as JDK 21 virtual threads, looked up reflectively
+ * so the same classes still run on Java 11; without virtual thread support the
+ * factories fall back to named daemon platform threads
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+final class MonitorThreads {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitorThreads.class.getName());
+
+    private MonitorThreads() {
+    }
+
+    /**
+     * Whether the running JVM can create virtual threads
+     */
+    static boolean isVirtualAvailable() {
+        return virtualFactory("probe") != null;
+    }
+
+    /**
+     * Factory for threads named prefix-1, prefix-2, ...
+     *
+     * @param virtual Create virtual threads when the runtime supports them
+     */
+    static ThreadFactory newFactory(String prefix, boolean virtual) {
+        if (virtual) {
+            ThreadFactory factory = virtualFactory(prefix);
+            if (factory != null) {
+                return factory;
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Executor starting a new thread per task: virtual threads, or a cached platform pool
+     */
+    static ExecutorService newPerTaskExecutor(String prefix, boolean virtual) {
+        ThreadFactory factory = newFactory(prefix, virtual);
+        if (virtual) {
+            try {
+                Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) perTask.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.fine("Thread-per-task executor not available, using cached pool");
+            }
+        }
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    private static ThreadFactory virtualFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+import java.util.logging.*;
+
+/**
+ * Constant-memory capture of a process's raw output
+ * Keeps the first bytes in a head window and the most recent bytes in a tail ring buffer,
+ * so the start of a run and the end (where errors usually are) both survive however much is printed
+ * Optionally spills every byte to a log file, and splits lines for live listeners
+ * Bytes are only decoded for listeners and when the preview is built
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class OutputCapture implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(OutputCapture.class.getName());
+    private static final int MAX_LINE_BYTES = 8192;
+
+    private final byte[] head;
+    private final byte[] tail;
+    private int headLength;
+    private int tailPosition;
+    private long totalBytes;
+
+    private final Consumer<String> lineListener;
+    private final byte[] line = new byte[MAX_LINE_BYTES];
+    private int lineLength;
+
+    private final Path spillFile;
+    private FileChannel spill;
+
+    /**
+     * @param headBytes Size of the window holding the first bytes of output
+     * @param tailBytes Size of the ring buffer holding the last bytes of output
+     * @param lineListener Receives every complete output line, or null
+     * @param spillFile Log file receiving the full output, or null to keep nothing beyond the windows
+     */
+    OutputCapture(int headBytes, int tailBytes, Consumer<String> lineListener, Path spillFile) {
+        this.head = new byte[headBytes];
+        this.tail = new byte[tailBytes];
+        this.lineListener = lineListener;
+        this.spillFile = spillFile;
+
+        if (spillFile != null) {
+            try {
+                spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                LOGGER.warning("Cannot open output log " + spillFile + ", output will not be spilled: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copy everything from the stream until end of stream
+     */
+    void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Record a chunk of raw output
+     */
+    synchronized void write(byte[] bytes, int offset, int length) {
+        spill(bytes, offset, length);
+        if (lineListener != null) {
+            splitLines(bytes, offset, length);
+        }
+        totalBytes += length;
+
+        int toHead = Math.min(length, head.length - headLength);
+        System.arraycopy(bytes, offset, head, headLength, toHead);
+        headLength += toHead;
+        offset += toHead;
+        length -= toHead;
+
+        if (length == 0 || tail.length == 0) {
+            return;
+        }
+        // Only the last tail.length bytes of the chunk can survive
+        if (length > tail.length) {
+            offset += length - tail.length;
+            length = tail.length;
+        }
+        int first = Math.min(length, tail.length - tailPosition);
+        System.arraycopy(bytes, offset, tail, tailPosition, first);
+        System.arraycopy(bytes, offset + first, tail, 0, length - first);
+        tailPosition = (tailPosition + length) % tail.length;
+    }
+
+    /**
+     * Head and tail of the output decoded as UTF-8, with a marker where bytes were skipped
+     */
+    synchronized String preview() {
+        long tailBytes = Math.min(totalBytes - headLength, tail.length);
+        long skipped = totalBytes - headLength - tailBytes;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(headLength + (int) tailBytes);
+        bytes.write(head, 0, headLength);
+        String headText = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+
+        bytes.reset();
+        if (tailBytes == tail.length) {
+            bytes.write(tail, tailPosition, tail.length - tailPosition);
+            bytes.write(tail, 0, tailPosition);
+        } else {
+            bytes.write(tail, 0, (int) tailBytes);
+        }
+        String tailText = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+
+        if (skipped == 0) {
+            return headText + tailText;
+        }
+        return headText + "\n... [" + skipped + " bytes skipped] ...\n" + tailText;
+    }
+
+    /**
+     * Total number of bytes written so far
+     */
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Log file holding the full output, or null if nothing was spilled
+     */
+    Path getSpillFile() {
+        return spillFile != null && spill != null ? spillFile : null;
+    }
+
+    /**
+     * Flush a trailing partial line to the listener and close the log file
+     */
+    @Override
+    public synchronized void close() {
+        if (lineListener != null && lineLength > 0) {
+            emitLine();
+        }
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                LOGGER.warning("Failed to close output log " + spillFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void spill(byte[] bytes, int offset, int length) {
+        if (spill == null || !spill.isOpen()) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                spill.write(buffer);
+            }
+        } catch (IOException e) {
+            // Losing the log must not fail the run
+            LOGGER.warning("Stopped writing output log " + spillFile + ": " + e.getMessage());
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+
+    private void splitLines(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                emitLine();
+            } else {
+                if (lineLength == line.length) {
+                    emitLine();
+                }
+                line[lineLength++] = b;
+            }
+        }
+    }
+
+    private void emitLine() {
+        int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        lineListener.accept(new String(line, 0, length, StandardCharsets.UTF_8));
+        lineLength = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.openshift.monitor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known output fingerprint of every command run by the native runner
+ * A fingerprint is a hash of the exit code and output, so comparing it with the previous
+ * run tells whether a command's result changed without keeping old outputs around
+ * Fingerprints live in memory and start empty after a restart
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class OutputFingerprints {
+
+    /**
+     * How a command's result compares with its previous run
+     */
+    enum Change {
+        NEW, CHANGED, UNCHANGED
+    }
+
+    /**
+     * One command's change since its previous run; output is only kept for changed commands
+     */
+    static class CommandDelta {
+        private final String group;
+        private final String command;
+        private final Change change;
+        private final String fingerprint;
+        private final String previousFingerprint;
+        private final int exitCode;
+        private final String output;
+
+        CommandDelta(CommandRunner.CommandResult result, Change change, String fingerprint, String previousFingerprint) {
+            this.group = result.getGroup();
+            this.command = result.getCommand();
+            this.change = change;
+            this.fingerprint = fingerprint;
+            this.previousFingerprint = previousFingerprint;
+            this.exitCode = result.getExitCode();
+            this.output = change == Change.UNCHANGED ? null : result.getOutput();
+        }
+
+        public String getGroup() { return group; }
+        public String getCommand() { return command; }
+        public Change getChange() { return change; }
+        public String getFingerprint() { return fingerprint; }
+        public String getPreviousFingerprint() { return previousFingerprint; }
+        public int getExitCode() { return exitCode; }
+        public String getOutput() { return output; }
+    }
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Store the result's fingerprint and compare it with the one from the previous run
+     */
+    CommandDelta record(CommandRunner.CommandResult result) {
+        String fingerprint = fingerprint(result);
+        String previous = fingerprints.put(result.getGroup() + "|" + result.getCommand(), fingerprint);
+
+        Change change = previous == null ? Change.NEW
+                : previous.equals(fingerprint) ? Change.UNCHANGED : Change.CHANGED;
+        return new CommandDelta(result, change, fingerprint, previous);
+    }
+
+    /**
+     * Number of commands with a known fingerprint
+     */
+    int size() {
+        return fingerprints.size();
+    }
+
+    private static String fingerprint(CommandRunner.CommandResult result) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((result.getExitCode() + (result.isTimedOut() ? "T" : "") + "\n").getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(result.getOutput().getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
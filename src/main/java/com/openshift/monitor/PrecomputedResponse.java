@@ -0,0 +1,121 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.*;
+
+/**
+ * Serialized JSON body prepared once, in plain and gzip form, each with its own strong content-based ETag
+ * Answers conditional requests with 304 and picks the encoding the client accepts
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class PrecomputedResponse {
+
+    private final byte[] plain;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+    private final long lastModified;
+    private final long version;
+
+    private PrecomputedResponse(byte[] plain, byte[] gzip, String etag, long lastModified, long version) {
+        this.plain = plain;
+        this.gzip = gzip;
+        this.etag = etag;
+        // A strong ETag identifies the exact bytes, so the gzip representation needs its own
+        this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        this.lastModified = lastModified;
+        this.version = version;
+    }
+
+    /**
+     * Prepare a response body
+     *
+     * @param json Serialized JSON
+     * @param lastModified Modification time of the underlying data
+     * @param version Version of the underlying data this body was built from
+     */
+    static PrecomputedResponse of(String json, long lastModified, long version) throws IOException {
+        byte[] plain = json.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(plain);
+        }
+
+        return new PrecomputedResponse(plain, compressed.toByteArray(), computeEtag(plain),
+                lastModified / 1000 * 1000, version);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Send the body, or 304 if the client's cached copy is still current
+     */
+    void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean compressed = CompressionFilter.acceptsGzip(request);
+        String representationEtag = compressed ? gzipEtag : etag;
+
+        response.setHeader("ETag", representationEtag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "no-cache");
+        CompressionFilter.addVary(response);
+
+        if (isNotModified(request, representationEtag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = plain;
+        if (compressed) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = gzip;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String representationEtag) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(representationEtag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String computeEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
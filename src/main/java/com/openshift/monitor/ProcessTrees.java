@@ -0,0 +1,29 @@
+package com.openshift.monitor;
+
+import java.util.*;
+
+/**
+ * Termination of a process together with all of its descendants
+ * Killing only the bash process leaves child oc processes orphaned and running
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+final class ProcessTrees {
+
+    private ProcessTrees() {
+    }
+
+    /**
+     * Forcibly kill the process and every descendant
+     * Descendants are collected before anything is killed, since orphans are re-parented
+     * and no longer reachable from the original process
+     */
+    static void destroyForcibly(Process process) {
+        List<ProcessHandle> descendants = new ArrayList<>();
+        process.toHandle().descendants().forEach(descendants::add);
+
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+}
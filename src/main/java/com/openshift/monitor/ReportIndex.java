@@ -0,0 +1,309 @@
+package com.openshift.monitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+/**
+ * In-memory catalog of generated reports, sorted newest first
+ * Built by one directory scan at startup and then kept current incrementally
+ * from directory watch events and from reports recorded by finished jobs
+ * Groups and mode of a recorded report are kept in a "<report>.meta" sidecar file,
+ * so filters keep matching reports written before a restart or redeploy
+ * Sidecars, including the gzipped copy ReportServlet keeps in "<report>.gz", are deleted with their report
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class ReportIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportIndex.class.getName());
+    private static final String METADATA_SUFFIX = ".meta";
+    static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String[] SIDECAR_SUFFIXES = {METADATA_SUFFIX, COMPRESSED_SUFFIX};
+
+    /**
+     * Indexed report with optional metadata about the run that produced it
+     */
+    static class Entry {
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final List<String> groups;
+        private final String mode;
+
+        Entry(String name, long size, long lastModified, List<String> groups, String mode) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.groups = groups;
+            this.mode = mode;
+        }
+
+        String getName() { return name; }
+        long getSize() { return size; }
+        long getLastModified() { return lastModified; }
+        List<String> getGroups() { return groups; }
+        String getMode() { return mode; }
+    }
+
+    /**
+     * One page of query results; nextCursor is null on the last page
+     */
+    static class Page {
+        private final List<Entry> entries;
+        private final String nextCursor;
+
+        Page(List<Entry> entries, String nextCursor) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+        }
+
+        List<Entry> getEntries() { return entries; }
+        String getNextCursor() { return nextCursor; }
+    }
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparingLong(Entry::getLastModified).reversed()
+            .thenComparing(Entry::getName);
+
+    private final Path directory;
+    private final NavigableSet<Entry> sorted = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+
+    ReportIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Whether a file name is a report this index tracks
+     */
+    static boolean isReportName(String name) {
+        return name.startsWith("daily_") && name.endsWith(".html");
+    }
+
+    /**
+     * Rebuild the index from a full directory scan, keeping metadata of known reports
+     */
+    synchronized void rescan() {
+        File[] files = directory.toFile().listFiles((dir, name) -> isReportName(name));
+        Set<String> present = new HashSet<>();
+
+        if (files != null) {
+            for (File file : files) {
+                present.add(file.getName());
+                refresh(file.toPath());
+            }
+        }
+
+        for (String name : new ArrayList<>(byName.keySet())) {
+            if (!present.contains(name)) {
+                remove(name);
+            }
+        }
+
+        // Sidecars of reports deleted while the application was down
+        for (String suffix : SIDECAR_SUFFIXES) {
+            File[] sidecars = directory.toFile().listFiles((dir, name) -> name.endsWith(suffix)
+                    && isReportName(name.substring(0, name.length() - suffix.length())));
+            if (sidecars != null) {
+                for (File sidecar : sidecars) {
+                    String name = sidecar.getName();
+                    if (!present.contains(name.substring(0, name.length() - suffix.length()))) {
+                        sidecar.delete();
+                    }
+                }
+            }
+        }
+
+        LOGGER.info("Indexed " + byName.size() + " reports in " + directory);
+    }
+
+    /**
+     * Handle a change notification for a path in the reports directory; null means rescan
+     */
+    void onChange(Path path) {
+        if (path == null) {
+            rescan();
+        } else if (isReportName(path.getFileName().toString())) {
+            refresh(path);
+        }
+    }
+
+    /**
+     * Record a report written by a job, together with the run's groups and mode
+     */
+    synchronized void record(Path path, List<String> groups, String mode) {
+        writeMetadata(path, groups, mode);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            put(new Entry(path.getFileName().toString(), attributes.size(),
+                    attributes.lastModifiedTime().toMillis(), groups, mode));
+        } catch (IOException e) {
+            LOGGER.warning("Failed to record report " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Most recent report, or null if there are none
+     */
+    Entry latest() {
+        return sorted.isEmpty() ? null : sorted.first();
+    }
+
+    /**
+     * Reports ordered newest first
+     */
+    NavigableSet<Entry> entries() {
+        return Collections.unmodifiableNavigableSet(sorted);
+    }
+
+    int size() {
+        return byName.size();
+    }
+
+    /**
+     * Page through reports newest first
+     * Starts right after the cursor position (or at until), stops at since, and
+     * skips reports whose recorded group or mode do not match the filters
+     * Unfiltered pages cost O(limit); with group or mode filters every skipped report is visited too
+     *
+     * @param since Oldest modification time to include, or Long.MIN_VALUE
+     * @param until Exclusive upper bound on modification time, or Long.MAX_VALUE
+     * @param group Only reports of runs that included this group, or null
+     * @param mode Only reports of runs in this mode, or null
+     * @param cursor Opaque cursor from a previous page, or null
+     * @param limit Maximum number of entries to return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    Page query(long since, long until, String group, String mode, String cursor, int limit) {
+        NavigableSet<Entry> candidates = sorted;
+
+        if (until != Long.MAX_VALUE) {
+            candidates = candidates.tailSet(new Entry("", 0, until - 1, null, null), true);
+        }
+        if (cursor != null) {
+            candidates = candidates.tailSet(decodeCursor(cursor), false);
+        }
+
+        List<Entry> page = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : candidates) {
+            if (entry.lastModified < since) {
+                break;
+            }
+            if (group != null && (entry.groups == null || !entry.groups.contains(group))) {
+                continue;
+            }
+            if (mode != null && !mode.equals(entry.mode)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new Page(page, encodeCursor(page.get(page.size() - 1)));
+            }
+            page.add(entry);
+        }
+
+        return new Page(page, null);
+    }
+
+    private static String encodeCursor(Entry entry) {
+        String position = entry.lastModified + ":" + entry.name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decodeCursor(String cursor) {
+        String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = position.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new Entry(position.substring(separator + 1), 0,
+                Long.parseLong(position.substring(0, separator)), null, null);
+    }
+
+    private synchronized void refresh(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Entry existing = byName.get(name);
+            if (existing != null && existing.groups != null) {
+                put(new Entry(name, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                        existing.groups, existing.mode));
+                return;
+            }
+
+            Properties metadata = readMetadata(path);
+            String groups = metadata.getProperty("groups");
+            put(new Entry(name, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    groups != null ? Collections.unmodifiableList(Arrays.asList(groups.split(","))) : null,
+                    metadata.getProperty("mode")));
+        } catch (NoSuchFileException e) {
+            remove(name);
+        } catch (IOException e) {
+            LOGGER.warning("Failed to index report " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void put(Entry entry) {
+        Entry previous = byName.put(entry.name, entry);
+        if (previous != null) {
+            sorted.remove(previous);
+        }
+        sorted.add(entry);
+    }
+
+    private void remove(String name) {
+        Entry previous = byName.remove(name);
+        if (previous != null) {
+            sorted.remove(previous);
+        }
+        for (String suffix : SIDECAR_SUFFIXES) {
+            try {
+                Files.deleteIfExists(directory.resolve(name + suffix));
+            } catch (IOException e) {
+                LOGGER.fine("Failed to delete " + suffix + " sidecar of removed report " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Path metadataFile(Path report) {
+        return report.resolveSibling(report.getFileName() + METADATA_SUFFIX);
+    }
+
+    private static void writeMetadata(Path report, List<String> groups, String mode) {
+        Properties metadata = new Properties();
+        if (groups != null) {
+            metadata.setProperty("groups", String.join(",", groups));
+        }
+        if (mode != null) {
+            metadata.setProperty("mode", mode);
+        }
+        try (Writer writer = Files.newBufferedWriter(metadataFile(report), StandardCharsets.UTF_8)) {
+            metadata.store(writer, null);
+        } catch (IOException e) {
+            LOGGER.warning("Failed to write metadata of report " + report + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Metadata stored next to a report, empty for reports without a sidecar (e.g. written by the script alone)
+     */
+    private static Properties readMetadata(Path report) {
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataFile(report), StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+        } catch (NoSuchFileException e) {
+            // Not recorded by a job of this application
+        } catch (IOException e) {
+            LOGGER.warning("Failed to read metadata of report " + report + ": " + e.getMessage());
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,294 @@
+package com.openshift.monitor;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.logging.*;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.*;
+import javax.servlet.http.*;
+import javax.servlet.annotation.*;
+
+/**
+ * Serves generated HTML reports from the reports directory next to the monitoring script
+ * Reports never change once written, so they are served with a long immutable cache lifetime,
+ * a validator derived from size and modification time, and single byte-range support
+ * Large reports are handed to the container's sendfile support where available (Tomcat NIO/NIO2/APR),
+ * so the kernel copies the file to the socket; otherwise they are copied through a small buffer
+ * Clients accepting gzip get a copy compressed once on first request and kept next to the report,
+ * with its own ETag; Range requests are always answered from the stored report
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+@WebServlet(name = "ReportServlet", urlPatterns = {"/reports/*"})
+public class ReportServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ReportServlet.class.getName());
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int COPY_BUFFER_BYTES = 8192;
+    // Below this size a plain copy is cheaper than setting up sendfile (same threshold as Tomcat's DefaultServlet)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private Path reportsDirectory;
+
+    /**
+     * Locate the reports directory the same way as {@link MonitorServlet}
+     */
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        reportsDirectory = MonitorServlet.resolveScriptDir(getServletContext()).toPath()
+                .resolve(MonitorServlet.REPORTS_DIR).toAbsolutePath().normalize();
+        LOGGER.info("Serving reports from: " + reportsDirectory);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveReport(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveReport(request, response, false);
+    }
+
+    @Override
+    protected long getLastModified(HttpServletRequest request) {
+        // Conditional requests are answered in serveReport together with the ETag
+        return -1;
+    }
+
+    private void serveReport(HttpServletRequest request, HttpServletResponse response, boolean sendBody)
+            throws IOException {
+        String pathInfo = request.getPathInfo();
+        String name = pathInfo != null && pathInfo.length() > 1 ? pathInfo.substring(1) : "";
+
+        // Only plain report names, never paths
+        if (!ReportIndex.isReportName(name) || name.contains("/") || name.contains("\\") || name.contains("..")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path file = reportsDirectory.resolve(name);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        String range = request.getHeader("Range");
+        CompressionFilter.addVary(response);
+        if (range == null && CompressionFilter.acceptsGzip(request)) {
+            Path compressed = compressedCopy(file, attributes);
+            if (compressed != null) {
+                file = compressed;
+                length = Files.size(compressed);
+                etag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+                response.setHeader("Content-Encoding", "gzip");
+            }
+        }
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        response.setHeader("Accept-Ranges", "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType("text/html");
+        response.setCharacterEncoding("UTF-8");
+
+        long start = 0;
+        long end = length - 1;
+        if (range != null && isRangeApplicable(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (!sendBody || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            // The connector writes the file after the servlet returns; nothing may be written to the body here
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        copyRange(file, start, count, response.getOutputStream());
+    }
+
+    /**
+     * The gzipped copy of a report, written on first use; null if it cannot be created
+     * The copy is published with an atomic rename, so concurrent requests never see a partial file
+     */
+    private Path compressedCopy(Path file, BasicFileAttributes attributes) {
+        Path compressed = file.resolveSibling(file.getFileName() + ReportIndex.COMPRESSED_SUFFIX);
+        try {
+            if (Files.getLastModifiedTime(compressed).compareTo(attributes.lastModifiedTime()) >= 0) {
+                return compressed;
+            }
+        } catch (NoSuchFileException e) {
+            // Not compressed yet
+        } catch (IOException e) {
+            LOGGER.fine("Cannot check compressed copy of " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(reportsDirectory, "gzip-", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), COPY_BUFFER_BYTES)) {
+                Files.copy(file, out);
+            }
+            Files.move(temp, compressed, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return compressed;
+        } catch (IOException e) {
+            LOGGER.warning("Failed to compress report " + file.getFileName() + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort
+                }
+            }
+            return null;
+        }
+    }
+
+    private static void copyRange(Path file, long start, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(start);
+            InputStream in = Channels.newInputStream(channel);
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    // Truncated since the length was sent; the client sees a short response
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A Range is honored unless If-Range names a different version of the report
+     */
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"")) {
+            return ifRange.trim().equals(etag);
+        }
+        try {
+            return request.getDateHeader("If-Range") == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a single "bytes=" range
+     *
+     * @return {start, end} inclusive, an empty array to ignore the header and send everything,
+     *         or null if the range cannot be satisfied
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.contains(",")) {
+            // Other units and multiple ranges are not supported; a full response is allowed
+            return new long[0];
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (last < start) {
+                    // Syntactically invalid, so the header is ignored rather than unsatisfiable
+                    return new long[0];
+                }
+                end = Math.min(length - 1, last);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
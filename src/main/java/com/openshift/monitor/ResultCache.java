@@ -0,0 +1,84 @@
+package com.openshift.monitor;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of recent successful monitor results, keyed on groups and mode
+ * Entries older than the configured freshness window are never returned
+ *
+ * @author OpenShift Monitor Team
+ * @version 2.0
+ */
+class ResultCache {
+
+    private static class Entry {
+        private final MonitorServlet.MonitorResult result;
+        private final long createdAt;
+
+        Entry(MonitorServlet.MonitorResult result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param ttlMillis Freshness window; 0 disables caching
+     * @param maxEntries Maximum number of cached results before the least recently used is evicted
+     */
+    ResultCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Look up a result no older than both the freshness window and the caller's max age
+     *
+     * @param maxAgeMillis Caller's freshness requirement, or a negative value for no extra limit
+     * @return Cached result or null on miss
+     */
+    synchronized MonitorServlet.MonitorResult get(String key, long maxAgeMillis) {
+        long allowedAge = maxAgeMillis < 0 ? ttlMillis : Math.min(ttlMillis, maxAgeMillis);
+        Entry entry = entries.get(key);
+
+        if (entry == null || System.currentTimeMillis() - entry.createdAt > allowedAge || allowedAge <= 0) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * Remember a successful result
+     */
+    synchronized void put(String key, MonitorServlet.MonitorResult result) {
+        if (ttlMillis <= 0 || result == null || !result.isSuccess()) {
+            return;
+        }
+        entries.put(key, new Entry(result, System.currentTimeMillis()));
+    }
+
+    /**
+     * Hit/miss counters and current size
+     */
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("size", entries.size());
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        return stats;
+    }
+}
@@ -16,8 +16,13 @@ const AppState = {
     apiEndpoints: {
         categories: '/api/categories',
         reports: '/api/reports',
-        runMonitor: '/api/run-monitor'
-    }
+        runMonitor: '/api/run-monitor',
+        jobs: '/api/jobs'
+    },
+    jobPollIntervalMs: 3000,
+    reportsPageSize: 20,
+    tabReportsLimit: 5,
+    reportsCursor: null
 };
 
 // ==================== DOM References ====================
@@ -149,23 +154,45 @@ async function loadCategories() {
 }
 
 /**
- * Load global reports list
+ * Load global reports list, one page at a time
+ * @param {boolean} append - Append the next page instead of reloading from the newest report
  */
-async function loadGlobalReports() {
+async function loadGlobalReports(append = false) {
     if (!DOM.reportsList) return;
 
     try {
-        const data = await apiCall(AppState.apiEndpoints.reports);
+        let url = `${AppState.apiEndpoints.reports}?limit=${AppState.reportsPageSize}`;
+        if (append && AppState.reportsCursor) {
+            url += `&cursor=${encodeURIComponent(AppState.reportsCursor)}`;
+        }
+
+        const data = await apiCall(url);
         const reports = data.reports || data.data || [];
+        AppState.reportsCursor = data.nextCursor || null;
 
-        if (reports.length === 0) {
+        const loadMoreBtn = DOM.reportsList.querySelector('.load-more');
+        if (loadMoreBtn) loadMoreBtn.remove();
+
+        if (!append && reports.length === 0) {
             DOM.reportsList.innerHTML = '<p class="loading">No reports available yet. Run the monitor to generate a report.</p>';
-        } else {
+            return;
+        }
+
+        if (!append) {
             DOM.reportsList.innerHTML = '';
-            reports.forEach(report => {
-                const reportElement = createReportElement(report);
-                DOM.reportsList.appendChild(reportElement);
-            });
+        }
+        reports.forEach(report => {
+            const reportElement = createReportElement(report);
+            DOM.reportsList.appendChild(reportElement);
+        });
+
+        if (AppState.reportsCursor) {
+            const button = document.createElement('button');
+            button.type = 'button';
+            button.className = 'btn btn-secondary load-more';
+            button.textContent = 'Load More';
+            button.addEventListener('click', () => loadGlobalReports(true));
+            DOM.reportsList.appendChild(button);
         }
     } catch (error) {
         console.error('Failed to load reports:', error);
@@ -180,8 +207,9 @@ async function loadTabReports() {
     setRunButtonState(false);
 
     try {
-        const data = await apiCall(AppState.apiEndpoints.reports);
+        const data = await apiCall(`${AppState.apiEndpoints.reports}?limit=${AppState.tabReportsLimit}`);
         const reports = data.reports || data.data || [];
+        const hasMore = Boolean(data.nextCursor);
 
         AppState.categories.forEach(category => {
             const tabReportsContainer = document.querySelector(`#reports-${category.id} .tab-reports-list`);
@@ -190,7 +218,7 @@ async function loadTabReports() {
             if (reports.length === 0) {
                 tabReportsContainer.innerHTML = '<p class="no-reports">No reports generated yet. Select groups and click Run Monitor.</p>';
             } else {
-                renderTabReports(tabReportsContainer, reports.slice(0, 5), reports.length);
+                renderTabReports(tabReportsContainer, reports, hasMore);
             }
         });
     } catch (error) {
@@ -330,9 +358,9 @@ function createReportElement(report) {
  * Render reports in tab
  * @param {HTMLElement} container - Container element
  * @param {Array} reports - Reports to display
- * @param {number} totalCount - Total number of reports
+ * @param {boolean} hasMore - Whether older reports exist
  */
-function renderTabReports(container, reports, totalCount) {
+function renderTabReports(container, reports, hasMore) {
     container.innerHTML = '';
 
     reports.forEach(report => {
@@ -353,10 +381,10 @@ function renderTabReports(container, reports, totalCount) {
         container.appendChild(reportItem);
     });
 
-    if (totalCount > 5) {
+    if (hasMore) {
         const moreInfo = document.createElement('p');
         moreInfo.className = 'more-reports';
-        moreInfo.textContent = `+${totalCount - 5} more reports available in "Recent Reports" section below`;
+        moreInfo.textContent = 'More reports available in "Recent Reports" section below';
         container.appendChild(moreInfo);
     }
 }
@@ -465,9 +493,13 @@ async function handleRunMonitor() {
             })
         });
 
-        const result = data.data || data;
+        let job = data.data;
+        if (!isJobFinished(job)) {
+            job = await streamJob(job.id);
+        }
+        const result = job.result || {};
 
-        if (result.success || data.success) {
+        if (job.status === 'COMPLETED') {
             let message = 'Monitoring completed successfully!';
             if (result.reportUrl) {
                 message += ` <a href="${escapeHtml(result.reportUrl)}" target="_blank" rel="noopener noreferrer" style="color: #155724; text-decoration: underline;">View Report</a>`;
@@ -491,6 +523,59 @@ async function handleRunMonitor() {
     }
 }
 
+/**
+ * Check whether a monitoring job has reached a final status
+ * @param {Object} job - Job as returned by the jobs API
+ * @returns {boolean} True if completed, failed or cancelled
+ */
+function isJobFinished(job) {
+    return job.status === 'COMPLETED' || job.status === 'FAILED' || job.status === 'CANCELLED';
+}
+
+/**
+ * Poll a monitoring job until it finishes
+ * @param {string} jobId - Job ID returned by run-monitor
+ * @returns {Promise<Object>} Finished job
+ */
+async function waitForJob(jobId) {
+    while (true) {
+        const data = await apiCall(`${AppState.apiEndpoints.jobs}/${encodeURIComponent(jobId)}`);
+        const job = data.data;
+
+        if (isJobFinished(job)) {
+            return job;
+        }
+
+        await new Promise(resolve => setTimeout(resolve, AppState.jobPollIntervalMs));
+    }
+}
+
+/**
+ * Follow live output of a monitoring job until it finishes
+ * Falls back to polling when streaming is unavailable or the stream breaks
+ * @param {string} jobId - Job ID returned by run-monitor
+ * @returns {Promise<Object>} Finished job
+ */
+function streamJob(jobId) {
+    if (!window.EventSource) {
+        return waitForJob(jobId);
+    }
+
+    return new Promise(resolve => {
+        const source = new EventSource(`${AppState.apiEndpoints.jobs}/${encodeURIComponent(jobId)}/stream`);
+
+        source.addEventListener('output', event => showProgress(event.data));
+        source.addEventListener('done', event => {
+            source.close();
+            resolve(JSON.parse(event.data));
+        });
+        source.onerror = () => {
+            source.close();
+            resolve(waitForJob(jobId));
+        };
+    });
+}
+
 // ==================== UI Helper Functions ====================
 
 /**
@@ -528,6 +613,18 @@ function showMessage(message, type) {
     }
 }
 
+/**
+ * Show the latest script output line while a run is in progress
+ * @param {string} line - Output line
+ */
+function showProgress(line) {
+    if (!DOM.statusMessage || !line.trim()) return;
+
+    DOM.statusMessage.className = 'status-message info';
+    DOM.statusMessage.textContent = line;
+    DOM.statusMessage.style.display = 'block';
+}
+
 // ==================== Utility Functions ====================
 
 /**
@@ -0,0 +1,114 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+class CronExpressionTest {
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC);
+    }
+
+    private static ZonedDateTime next(String expression, ZonedDateTime after) {
+        return CronExpression.parse(expression).next(after);
+    }
+
+    @Test
+    void nextIsStrictlyAfterTheGivenTime() {
+        assertEquals(at(2025, 1, 6, 10, 30), next("*/15 * * * *", at(2025, 1, 6, 10, 15)));
+        assertEquals(at(2025, 1, 6, 10, 16), next("* * * * *", at(2025, 1, 6, 10, 15).plusSeconds(59)));
+    }
+
+    @Test
+    void stepOverWholeFieldRollsIntoNextHour() {
+        assertEquals(at(2025, 1, 6, 10, 15), next("*/15 * * * *", at(2025, 1, 6, 10, 7)));
+        assertEquals(at(2025, 1, 6, 11, 0), next("*/15 * * * *", at(2025, 1, 6, 10, 45)));
+    }
+
+    @Test
+    void rangeWithStep() {
+        CronExpression cron = CronExpression.parse("10-20/5 * * * *");
+        ZonedDateTime time = at(2025, 1, 6, 9, 0);
+        time = cron.next(time);
+        assertEquals(10, time.getMinute());
+        time = cron.next(time);
+        assertEquals(15, time.getMinute());
+        time = cron.next(time);
+        assertEquals(20, time.getMinute());
+        assertEquals(at(2025, 1, 6, 10, 10), cron.next(time));
+    }
+
+    @Test
+    void singleValueWithStepRunsToEndOfField() {
+        CronExpression cron = CronExpression.parse("5/20 * * * *");
+        assertEquals(at(2025, 1, 6, 9, 25), cron.next(at(2025, 1, 6, 9, 5)));
+        assertEquals(at(2025, 1, 6, 9, 45), cron.next(at(2025, 1, 6, 9, 25)));
+        assertEquals(at(2025, 1, 6, 10, 5), cron.next(at(2025, 1, 6, 9, 45)));
+    }
+
+    @Test
+    void listOfHours() {
+        assertEquals(at(2025, 1, 6, 17, 0), next("0 9,17 * * *", at(2025, 1, 6, 9, 0)));
+        assertEquals(at(2025, 1, 7, 9, 0), next("0 9,17 * * *", at(2025, 1, 6, 17, 0)));
+    }
+
+    @Test
+    void weekdayRangeSkipsWeekend() {
+        // 2025-01-04 is a Saturday
+        assertEquals(at(2025, 1, 6, 9, 0), next("0 9 * * 1-5", at(2025, 1, 4, 8, 0)));
+    }
+
+    @Test
+    void sundayIsZeroOrSeven() {
+        // 2025-01-05 is a Sunday
+        assertEquals(at(2025, 1, 5, 0, 0), next("0 0 * * 0", at(2025, 1, 4, 12, 0)));
+        assertEquals(at(2025, 1, 5, 0, 0), next("0 0 * * 7", at(2025, 1, 4, 12, 0)));
+    }
+
+    @Test
+    void dayOfMonthAndDayOfWeekMatchEitherWhenBothRestricted() {
+        // The 13th or any Friday: 2025-01-03 is a Friday, then Friday the 10th, then Monday the 13th
+        CronExpression cron = CronExpression.parse("0 0 13 * 5");
+        assertEquals(at(2025, 1, 3, 0, 0), cron.next(at(2025, 1, 1, 0, 0)));
+        assertEquals(at(2025, 1, 10, 0, 0), cron.next(at(2025, 1, 3, 0, 0)));
+        assertEquals(at(2025, 1, 13, 0, 0), cron.next(at(2025, 1, 10, 0, 0)));
+    }
+
+    @Test
+    void dayOfMonthAloneWhenDayOfWeekIsAny() {
+        assertEquals(at(2025, 2, 1, 0, 0), next("0 0 1 * *", at(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void monthFieldSkipsToMatchingMonth() {
+        assertEquals(at(2025, 6, 1, 0, 0), next("0 0 1 6 *", at(2025, 1, 15, 0, 0)));
+    }
+
+    @Test
+    void leapDayIsFoundYearsAhead() {
+        assertEquals(at(2028, 2, 29, 0, 0), next("0 0 29 2 *", at(2025, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void impossibleDateNeverFires() {
+        assertNull(next("0 0 31 2 *", at(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* 24 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * 0 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * 13 *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * * 8"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("5-1 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/x * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("*/0 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("a * * * *"));
+    }
+}
@@ -0,0 +1,227 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class JobEngineTest {
+
+    // Runs of this group hold the single worker until released
+    private static final String BLOCKING_GROUP = "A";
+    private static final long NO_AGING = TimeUnit.HOURS.toMillis(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BlockingQueue<MonitorJob> started = new LinkedBlockingQueue<>();
+    private JobEngine engine;
+
+    private MonitorServlet.MonitorResult run(MonitorJob job) throws InterruptedException {
+        started.add(job);
+        if (job.getGroups().contains(BLOCKING_GROUP)) {
+            release.await();
+        }
+        return new MonitorServlet.MonitorResult(true, "done", null, null, "");
+    }
+
+    private JobEngine engine(long agingMillis) {
+        engine = new JobEngine(this::run, new ResultCache(60_000, 16), Executors.defaultThreadFactory(),
+                1, 10, 60_000, agingMillis);
+        return engine;
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    private static MonitorServlet.MonitorRequest request(String priority, String... groups) {
+        MonitorServlet.MonitorRequest request = new MonitorServlet.MonitorRequest();
+        request.setGroups(Arrays.asList(groups));
+        request.setMode("actionable");
+        request.setRunner("script");
+        request.setPriority(priority);
+        return request;
+    }
+
+    private static MonitorJob await(MonitorJob job) throws Exception {
+        CompletableFuture<MonitorJob> finished = new CompletableFuture<>();
+        job.whenFinished(finished::complete);
+        return finished.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Occupy the only worker with a blocking run
+     */
+    private MonitorJob occupyWorker() throws InterruptedException {
+        MonitorJob blocker = engine.submit(request(null, BLOCKING_GROUP), -1);
+        assertSame(blocker, started.poll(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    @Test
+    void identicalRequestsShareOneJob() throws Exception {
+        engine(NO_AGING);
+        occupyWorker();
+
+        MonitorJob first = engine.submit(request(null, "B", "C"), -1);
+        MonitorJob second = engine.submit(request(null, "C", "B", "C"), -1);
+        MonitorJob other = engine.submit(request(null, "B"), -1);
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        release.countDown();
+        assertEquals(MonitorJob.Status.COMPLETED, await(first).getStatus());
+        await(other);
+        assertEquals(2, started.size(), "the shared job ran once");
+    }
+
+    @Test
+    void joiningRequestRaisesPriority() throws Exception {
+        engine(NO_AGING);
+        occupyWorker();
+
+        MonitorJob job = engine.submit(request("bulk", "B"), -1);
+        assertEquals(MonitorJob.Priority.BULK, job.getPriority());
+        assertSame(job, engine.submit(request("interactive", "B"), -1));
+        assertEquals(MonitorJob.Priority.INTERACTIVE, job.getPriority());
+    }
+
+    @Test
+    void fullQueueRejectsNewJobs() throws Exception {
+        engine = new JobEngine(this::run, new ResultCache(0, 16), Executors.defaultThreadFactory(), 1, 1, 60_000, NO_AGING);
+        occupyWorker();
+
+        engine.submit(request(null, "B"), -1);
+        assertThrows(RejectedExecutionException.class, () -> engine.submit(request(null, "C"), -1));
+        assertEquals(1L, engine.getStats().get("rejected"));
+    }
+
+    @Test
+    void recentResultIsServedFromCache() throws Exception {
+        engine(NO_AGING);
+        MonitorJob first = await(engine.submit(request(null, "B"), -1));
+        assertFalse(first.isCached());
+
+        MonitorJob second = engine.submit(request(null, "B"), -1);
+        assertNotSame(first, second);
+        assertTrue(second.isCached());
+        assertEquals(MonitorJob.Status.COMPLETED, second.getStatus());
+        assertSame(second, engine.getJob(second.getId()));
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    void maxAgeZeroBypassesCache() throws Exception {
+        engine(NO_AGING);
+        await(engine.submit(request(null, "B"), -1));
+
+        MonitorJob fresh = await(engine.submit(request(null, "B"), 0));
+        assertFalse(fresh.isCached());
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    void failedResultsAreNotCached() throws Exception {
+        engine = new JobEngine(job -> {
+            started.add(job);
+            return new MonitorServlet.MonitorResult(false, "failed", null, null, "");
+        }, new ResultCache(60_000, 16), Executors.defaultThreadFactory(), 1, 10, 60_000, NO_AGING);
+
+        assertEquals(MonitorJob.Status.FAILED, await(engine.submit(request(null, "B"), -1)).getStatus());
+        assertFalse(await(engine.submit(request(null, "B"), -1)).isCached());
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    void higherPriorityStartsFirst() throws Exception {
+        engine(NO_AGING);
+        occupyWorker();
+
+        MonitorJob bulk = engine.submit(request("bulk", "B"), -1);
+        MonitorJob scheduled = engine.submit(request("scheduled", "C"), -1);
+        MonitorJob interactive = engine.submit(request("interactive", "D"), -1);
+
+        release.countDown();
+        assertSame(interactive, started.poll(5, TimeUnit.SECONDS));
+        assertSame(scheduled, started.poll(5, TimeUnit.SECONDS));
+        assertSame(bulk, started.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void equalPriorityStartsOldestFirst() throws Exception {
+        engine(NO_AGING);
+        occupyWorker();
+
+        MonitorJob first = engine.submit(request("bulk", "B"), -1);
+        Thread.sleep(5);
+        MonitorJob second = engine.submit(request("bulk", "C"), -1);
+
+        release.countDown();
+        assertSame(first, started.poll(5, TimeUnit.SECONDS));
+        assertSame(second, started.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waitingJobIsPromotedByAging() throws Exception {
+        long agingMillis = 50;
+        engine(agingMillis);
+        occupyWorker();
+
+        // Three aging intervals lift bulk (rank 2) past a newly queued interactive job (rank 0)
+        MonitorJob bulk = engine.submit(request("bulk", "B"), -1);
+        Thread.sleep(3 * agingMillis);
+        MonitorJob interactive = engine.submit(request("interactive", "C"), -1);
+
+        release.countDown();
+        assertSame(bulk, started.poll(5, TimeUnit.SECONDS));
+        assertSame(interactive, started.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledQueuedJobNeverRuns() throws Exception {
+        engine(NO_AGING);
+        occupyWorker();
+
+        MonitorJob queued = engine.submit(request(null, "B"), -1);
+        assertSame(queued, engine.cancel(queued.getId()));
+        assertEquals(MonitorJob.Status.CANCELLED, queued.getStatus());
+
+        // The cancelled job no longer absorbs identical requests
+        MonitorJob resubmitted = engine.submit(request(null, "B"), -1);
+        assertNotSame(queued, resubmitted);
+
+        release.countDown();
+        assertSame(resubmitted, started.poll(5, TimeUnit.SECONDS));
+        assertNull(started.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void cancelInterruptsRunningJob() throws Exception {
+        engine(NO_AGING);
+        MonitorJob running = occupyWorker();
+
+        engine.cancel(running.getId());
+        assertEquals(MonitorJob.Status.CANCELLED, await(running).getStatus());
+
+        // The worker is free again and the cancelled result is not cached
+        MonitorJob next = engine.submit(request(null, "B"), -1);
+        assertEquals(MonitorJob.Status.COMPLETED, await(next).getStatus());
+        assertFalse(engine.submit(request(null, BLOCKING_GROUP), -1).isCached());
+    }
+
+    @Test
+    void cancelOfUnknownOrFinishedJobChangesNothing() throws Exception {
+        engine(NO_AGING);
+        assertNull(engine.cancel("unknown"));
+
+        MonitorJob finished = await(engine.submit(request(null, "B"), -1));
+        assertSame(finished, engine.cancel(finished.getId()));
+        assertEquals(MonitorJob.Status.COMPLETED, finished.getStatus());
+    }
+}
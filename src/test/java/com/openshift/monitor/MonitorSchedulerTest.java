@@ -0,0 +1,180 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MonitorSchedulerTest {
+
+    // Far in the future so the scheduler's own timer never fires during a test
+    private static final String YEARLY = "0 0 1 1 *";
+
+    @TempDir
+    Path directory;
+
+    private final List<MonitorJob> submitted = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<MonitorJob> submissions = new LinkedBlockingQueue<>();
+    private final MonitorScheduler scheduler = new MonitorScheduler(this::submit, Executors.defaultThreadFactory());
+
+    private MonitorJob submit(List<String> groups, String mode) {
+        MonitorServlet.MonitorRequest request = new MonitorServlet.MonitorRequest();
+        request.setGroups(groups);
+        request.setMode(mode);
+        request.setRunner("script");
+        MonitorJob job = new MonitorJob(request);
+        submitted.add(job);
+        submissions.add(job);
+        return job;
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private MonitorScheduler.Schedule load(String line) throws IOException {
+        Path file = directory.resolve("schedules.list");
+        Files.write(file, Arrays.asList("# comment", "", line));
+        scheduler.load(file);
+        assertEquals(1, scheduler.getSchedules().size());
+        return scheduler.getSchedules().get(0);
+    }
+
+    private long skipped() {
+        return (Long) scheduler.getStatus().get(0).get("skipped");
+    }
+
+    private static void finish(MonitorJob job) {
+        job.complete(new MonitorServlet.MonitorResult(true, "done", null, null, ""));
+    }
+
+    @Test
+    void parsesDefinitionWithOptions() {
+        MonitorScheduler.Schedule schedule = MonitorScheduler.parse("*/15 * * * * | A, B | verbose | jitter=30, missed=catchup");
+        assertEquals(Arrays.asList("A", "B"), schedule.getGroups());
+        assertEquals("verbose", schedule.getMode());
+        assertEquals(30_000, schedule.getJitterMillis());
+        assertEquals(MonitorScheduler.MissedRunPolicy.CATCHUP, schedule.getMissedRunPolicy());
+    }
+
+    @Test
+    void optionsDefaultToNoJitterAndSkip() {
+        MonitorScheduler.Schedule schedule = MonitorScheduler.parse("0 6 * * * | C | actionable");
+        assertEquals(0, schedule.getJitterMillis());
+        assertEquals(MonitorScheduler.MissedRunPolicy.SKIP, schedule.getMissedRunPolicy());
+    }
+
+    @Test
+    void rejectsInvalidDefinitions() {
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * | A | actionable"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | a | actionable"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A | quick"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A | actionable | jitter"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A | actionable | jitter=x"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A | actionable | missed=never"));
+        assertThrows(IllegalArgumentException.class, () -> MonitorScheduler.parse("* * * * * | A | actionable | retries=3"));
+    }
+
+    @Test
+    void invalidLinesAreIgnoredOnLoad() throws IOException {
+        Path file = directory.resolve("schedules.list");
+        Files.write(file, Arrays.asList("* * * * * | A | quick", YEARLY + " | B | verbose"));
+        scheduler.load(file);
+        assertEquals(1, scheduler.getSchedules().size());
+        assertEquals("verbose", scheduler.getSchedules().get(0).getMode());
+    }
+
+    @Test
+    void missingFileClearsSchedules() throws IOException {
+        load(YEARLY + " | A | actionable");
+        scheduler.load(directory.resolve("missing.list"));
+        assertTrue(scheduler.getSchedules().isEmpty());
+    }
+
+    @Test
+    void onTimeFireSubmitsRun() throws IOException {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A,B | verbose");
+        scheduler.fire(schedule, System.currentTimeMillis());
+
+        assertEquals(1, submitted.size());
+        assertEquals(Arrays.asList("A", "B"), submitted.get(0).getGroups());
+        assertEquals("verbose", submitted.get(0).getMode());
+    }
+
+    @Test
+    void lateFireIsSkippedWithSkipPolicy() throws IOException {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A | actionable | missed=skip");
+        scheduler.fire(schedule, System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2));
+
+        assertTrue(submitted.isEmpty());
+        assertEquals(1, skipped());
+    }
+
+    @Test
+    void lateFireStillRunsWithCatchupPolicy() throws IOException {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A | actionable | missed=catchup");
+        scheduler.fire(schedule, System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2));
+
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void overlappingRunIsSkippedWithSkipPolicy() throws IOException {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A | actionable");
+        scheduler.fire(schedule, System.currentTimeMillis());
+        scheduler.fire(schedule, System.currentTimeMillis());
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, skipped());
+
+        finish(submitted.get(0));
+        scheduler.fire(schedule, System.currentTimeMillis());
+        assertEquals(2, submitted.size());
+    }
+
+    @Test
+    void overlappingRunsCollapseIntoOneCatchUp() throws Exception {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A | actionable | missed=catchup");
+        scheduler.fire(schedule, System.currentTimeMillis());
+        MonitorJob first = submissions.take();
+
+        scheduler.fire(schedule, System.currentTimeMillis());
+        scheduler.fire(schedule, System.currentTimeMillis());
+        assertEquals(1, submitted.size());
+        assertEquals(1, skipped());
+
+        finish(first);
+        assertNotNull(submissions.poll(5, TimeUnit.SECONDS), "catch-up run after the first run finished");
+        assertNull(submissions.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, submitted.size());
+    }
+
+    @Test
+    void reloadKeepsRunningJobOfUnchangedLine() throws IOException {
+        String line = YEARLY + " | A | actionable";
+        scheduler.fire(load(line), System.currentTimeMillis());
+
+        MonitorScheduler.Schedule reloaded = load(line);
+        scheduler.fire(reloaded, System.currentTimeMillis());
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, skipped());
+    }
+
+    @Test
+    void removedScheduleDoesNotFire() throws IOException {
+        MonitorScheduler.Schedule schedule = load(YEARLY + " | A | actionable");
+        load(YEARLY + " | B | actionable");
+        scheduler.fire(schedule, System.currentTimeMillis());
+
+        assertTrue(submitted.isEmpty());
+    }
+}
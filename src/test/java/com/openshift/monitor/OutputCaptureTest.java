@@ -0,0 +1,144 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputCaptureTest {
+
+    private static void write(OutputCapture capture, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        capture.write(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void outputWithinHeadIsKeptWhole() {
+        OutputCapture capture = new OutputCapture(16, 8, null, null);
+        write(capture, "hello");
+        assertEquals("hello", capture.preview());
+        assertEquals(5, capture.getTotalBytes());
+    }
+
+    @Test
+    void outputFillingHeadAndTailHasNoSkipMarker() {
+        OutputCapture capture = new OutputCapture(4, 4, null, null);
+        write(capture, "0123");
+        write(capture, "4567");
+        assertEquals("01234567", capture.preview());
+    }
+
+    @Test
+    void middleIsSkippedWithMarker() {
+        OutputCapture capture = new OutputCapture(4, 4, null, null);
+        write(capture, "0123456789ABCDEF");
+        assertEquals("0123\n... [8 bytes skipped] ...\nCDEF", capture.preview());
+        assertEquals(16, capture.getTotalBytes());
+    }
+
+    @Test
+    void tailRingWrapsAcrossSmallWrites() {
+        OutputCapture capture = new OutputCapture(2, 5, null, null);
+        for (char c = 'a'; c <= 'z'; c++) {
+            write(capture, String.valueOf(c));
+        }
+        assertEquals("ab\n... [19 bytes skipped] ...\nvwxyz", capture.preview());
+    }
+
+    @Test
+    void tailRingWrapsWhenChunkStraddlesTheEnd() {
+        OutputCapture capture = new OutputCapture(0, 6, null, null);
+        write(capture, "abcd");
+        write(capture, "efgh");
+        assertEquals("\n... [2 bytes skipped] ...\ncdefgh", capture.preview());
+        write(capture, "ij");
+        assertEquals("\n... [4 bytes skipped] ...\nefghij", capture.preview());
+    }
+
+    @Test
+    void chunkLargerThanTailKeepsOnlyItsEnd() {
+        OutputCapture capture = new OutputCapture(3, 4, null, null);
+        write(capture, "xyz");
+        write(capture, "0123456789");
+        assertEquals("xyz\n... [6 bytes skipped] ...\n6789", capture.preview());
+    }
+
+    @Test
+    void zeroSizedTailKeepsOnlyHead() {
+        OutputCapture capture = new OutputCapture(3, 0, null, null);
+        write(capture, "abcdef");
+        assertEquals("abc\n... [3 bytes skipped] ...\n", capture.preview());
+    }
+
+    @Test
+    void linesAreSplitAcrossChunkBoundaries() {
+        List<String> lines = new ArrayList<>();
+        OutputCapture capture = new OutputCapture(64, 64, lines::add, null);
+        write(capture, "ab");
+        write(capture, "c\nde");
+        write(capture, "f\r\n\n");
+        write(capture, "g");
+        assertEquals(Arrays.asList("abc", "def", ""), lines);
+
+        capture.close();
+        assertEquals(Arrays.asList("abc", "def", "", "g"), lines);
+    }
+
+    @Test
+    void lineListenerSeesEveryLineWhilePreviewIsTruncated() {
+        List<String> lines = new ArrayList<>();
+        OutputCapture capture = new OutputCapture(4, 4, lines::add, null);
+        write(capture, "one\ntwo\nthree\n");
+        capture.close();
+        assertEquals(Arrays.asList("one", "two", "three"), lines);
+        assertEquals("one\n\n... [6 bytes skipped] ...\nree\n", capture.preview());
+    }
+
+    @Test
+    void overlongLinesAreSplit() {
+        List<String> lines = new ArrayList<>();
+        OutputCapture capture = new OutputCapture(16, 16, lines::add, null);
+        char[] longLine = new char[8192 + 10];
+        Arrays.fill(longLine, 'x');
+        write(capture, new String(longLine) + "\n");
+        assertEquals(2, lines.size());
+        assertEquals(8192, lines.get(0).length());
+        assertEquals(10, lines.get(1).length());
+    }
+
+    @Test
+    void multiByteCharactersSurviveWhenNotCut() {
+        OutputCapture capture = new OutputCapture(16, 16, null, null);
+        write(capture, "größe ✓");
+        assertEquals("größe ✓", capture.preview());
+    }
+
+    @Test
+    void spillFileReceivesEverything(@TempDir Path directory) throws IOException {
+        Path log = directory.resolve("job.log");
+        byte[] output = "0123456789ABCDEF\nsecond line\n".getBytes(StandardCharsets.UTF_8);
+
+        OutputCapture capture = new OutputCapture(4, 4, null, log);
+        capture.drain(new ByteArrayInputStream(output));
+        capture.close();
+
+        assertEquals(log, capture.getSpillFile());
+        assertArrayEquals(output, Files.readAllBytes(log));
+        assertEquals(output.length, capture.getTotalBytes());
+    }
+
+    @Test
+    void noSpillFileWithoutPath() {
+        OutputCapture capture = new OutputCapture(4, 4, null, null);
+        capture.close();
+        assertNull(capture.getSpillFile());
+    }
+}
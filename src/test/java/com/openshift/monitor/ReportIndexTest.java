@@ -0,0 +1,167 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportIndexTest {
+
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private ReportIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ReportIndex(directory);
+    }
+
+    /**
+     * Write a report modified the given number of seconds after BASE
+     */
+    private Path report(String name, int second) throws IOException {
+        Path file = directory.resolve("daily_" + name + ".html");
+        Files.write(file, Collections.singletonList("<html></html>"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(BASE + second * 1000L));
+        return file;
+    }
+
+    private static List<String> names(ReportIndex.Page page) {
+        List<String> names = new ArrayList<>();
+        for (ReportIndex.Entry entry : page.getEntries()) {
+            names.add(entry.getName().substring("daily_".length(), entry.getName().length() - ".html".length()));
+        }
+        return names;
+    }
+
+    private ReportIndex.Page page(String cursor, int limit) {
+        return index.query(Long.MIN_VALUE, Long.MAX_VALUE, null, null, cursor, limit);
+    }
+
+    @Test
+    void pagesWalkAllReportsNewestFirst() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            report("r" + i, i);
+        }
+        index.rescan();
+
+        ReportIndex.Page first = page(null, 2);
+        assertEquals(Arrays.asList("r5", "r4"), names(first));
+        ReportIndex.Page second = page(first.getNextCursor(), 2);
+        assertEquals(Arrays.asList("r3", "r2"), names(second));
+        ReportIndex.Page last = page(second.getNextCursor(), 2);
+        assertEquals(Collections.singletonList("r1"), names(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() throws IOException {
+        for (int i = 1; i <= 4; i++) {
+            report("r" + i, i);
+        }
+        index.rescan();
+
+        ReportIndex.Page second = page(page(null, 2).getNextCursor(), 2);
+        assertEquals(Arrays.asList("r2", "r1"), names(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cursorIsStableWhenNewReportsArrive() throws IOException {
+        for (int i = 1; i <= 4; i++) {
+            report("r" + i, i);
+        }
+        index.rescan();
+        ReportIndex.Page first = page(null, 2);
+
+        index.onChange(report("r9", 9));
+
+        assertEquals(Arrays.asList("r2", "r1"), names(page(first.getNextCursor(), 2)));
+        assertEquals(Arrays.asList("r9", "r4"), names(page(null, 2)));
+    }
+
+    @Test
+    void reportsWithTheSameTimeArePagedByName() throws IOException {
+        report("b", 1);
+        report("a", 1);
+        report("c", 1);
+        index.rescan();
+
+        ReportIndex.Page first = page(null, 2);
+        assertEquals(Arrays.asList("a", "b"), names(first));
+        assertEquals(Collections.singletonList("c"), names(page(first.getNextCursor(), 2)));
+    }
+
+    @Test
+    void sinceAndUntilBoundTheRange() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            report("r" + i, i);
+        }
+        index.rescan();
+
+        ReportIndex.Page page = index.query(BASE + 2000, BASE + 4000, null, null, null, 10);
+        assertEquals(Arrays.asList("r3", "r2"), names(page));
+    }
+
+    @Test
+    void filtersApplyAcrossPages() throws IOException {
+        index.record(report("r1", 1), Arrays.asList("A", "B"), "verbose");
+        index.record(report("r2", 2), Collections.singletonList("C"), "verbose");
+        index.record(report("r3", 3), Collections.singletonList("A"), "actionable");
+        index.record(report("r4", 4), Collections.singletonList("A"), "verbose");
+
+        ReportIndex.Page first = index.query(Long.MIN_VALUE, Long.MAX_VALUE, "A", null, null, 2);
+        assertEquals(Arrays.asList("r4", "r3"), names(first));
+        ReportIndex.Page second = index.query(Long.MIN_VALUE, Long.MAX_VALUE, "A", null, first.getNextCursor(), 2);
+        assertEquals(Collections.singletonList("r1"), names(second));
+        assertNull(second.getNextCursor());
+
+        ReportIndex.Page verbose = index.query(Long.MIN_VALUE, Long.MAX_VALUE, "A", "verbose", null, 10);
+        assertEquals(Arrays.asList("r4", "r1"), names(verbose));
+    }
+
+    @Test
+    void recordedMetadataSurvivesRestart() throws IOException {
+        index.record(report("r1", 1), Arrays.asList("A", "B"), "verbose");
+        report("r2", 2);
+
+        ReportIndex restarted = new ReportIndex(directory);
+        restarted.rescan();
+
+        ReportIndex.Page page = restarted.query(Long.MIN_VALUE, Long.MAX_VALUE, "B", "verbose", null, 10);
+        assertEquals(Collections.singletonList("r1"), names(page));
+        assertEquals(2, restarted.size());
+    }
+
+    @Test
+    void sidecarsOfDeletedReportsAreRemovedOnRescan() throws IOException {
+        Path file = report("r1", 1);
+        index.record(file, Collections.singletonList("A"), "verbose");
+        Path compressed = directory.resolve(file.getFileName() + ReportIndex.COMPRESSED_SUFFIX);
+        Files.write(compressed, new byte[] {1});
+
+        Files.delete(file);
+        new ReportIndex(directory).rescan();
+
+        assertFalse(Files.exists(directory.resolve(file.getFileName() + ".meta")));
+        assertFalse(Files.exists(compressed));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> page("not base64!", 2));
+        assertThrows(IllegalArgumentException.class, () -> page("bm8tc2VwYXJhdG9y", 2));
+    }
+}
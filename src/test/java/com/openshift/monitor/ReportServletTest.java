@@ -0,0 +1,55 @@
+package com.openshift.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ReportServletTest {
+
+    private static final long LENGTH = 1000;
+
+    private static long[] range(String header) {
+        return ReportServlet.parseRange(header, LENGTH);
+    }
+
+    @Test
+    void closedRange() {
+        assertArrayEquals(new long[] {0, 99}, range("bytes=0-99"));
+        assertArrayEquals(new long[] {999, 999}, range("bytes=999-999"));
+    }
+
+    @Test
+    void endIsClampedToLength() {
+        assertArrayEquals(new long[] {500, 999}, range("bytes=500-5000"));
+    }
+
+    @Test
+    void openEndedRange() {
+        assertArrayEquals(new long[] {900, 999}, range("bytes=900-"));
+        assertArrayEquals(new long[] {0, 999}, range("bytes=0-"));
+    }
+
+    @Test
+    void suffixRange() {
+        assertArrayEquals(new long[] {900, 999}, range("bytes=-100"));
+        assertArrayEquals(new long[] {0, 999}, range("bytes=-2000"));
+    }
+
+    @Test
+    void unsatisfiableRanges() {
+        assertNull(range("bytes=1000-"));
+        assertNull(range("bytes=1000-1100"));
+        assertNull(range("bytes=-0"));
+        assertNull(ReportServlet.parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void unsupportedOrMalformedRangesAreIgnored() {
+        assertEquals(0, range("bytes=0-1,5-6").length);
+        assertEquals(0, range("items=0-1").length);
+        assertEquals(0, range("bytes=abc").length);
+        assertEquals(0, range("bytes=x-y").length);
+        assertEquals(0, range("bytes=5-1").length);
+        assertEquals(0, range("bytes=2000-1").length);
+    }
+}